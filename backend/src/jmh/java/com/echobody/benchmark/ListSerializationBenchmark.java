@@ -0,0 +1,86 @@
+package com.echobody.benchmark;
+
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing one list page of workouts, as full entities or as list summaries, with or
+ * without the Blackbird module. No Mongo needed; the page size in bytes is printed at
+ * setup: {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ListSerializationBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListSerializationBenchmark {
+
+    @Param({"entity", "summary"})
+    public String rows;
+
+    @Param({"default", "blackbird"})
+    public String mapper;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private List<?> page;
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (mapper.equals("blackbird")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+
+        List<Workout> workouts = new ArrayList<>();
+        List<WorkoutSummary> summaries = new ArrayList<>();
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 7, 30);
+        for (int i = 0; i < pageSize; i++) {
+            Workout workout = new Workout();
+            workout.setId(String.format("65a1%020x", i));
+            workout.setUserId("benchmark@example.com");
+            workout.setName("Bench Press");
+            workout.setMuscleGroup("Chest");
+            workout.setSets(4);
+            workout.setReps(8);
+            workout.setWeight(80 + i % 20);
+            workout.setCaloriesBurned(250);
+            workout.setNotes("Paused reps on the last set, felt strong; "
+                    + "try 2.5 kg more next week with a slower descent.");
+            workout.setDate(date.minusDays(i));
+            workouts.add(workout);
+            summaries.add(objectMapper.convertValue(workout, WorkoutSummary.class));
+        }
+        page = rows.equals("summary") ? summaries : workouts;
+        System.out.printf("%n%s rows, %s mapper: %d bytes per page%n", rows, mapper,
+                objectMapper.writeValueAsBytes(page).length);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,62 @@
+package com.echobody.benchmark;
+
+import com.echobody.dto.DashboardSummary;
+import com.echobody.dto.PersonalRecordDTO;
+import com.echobody.dto.ProgressSummaryDTO;
+import com.echobody.dto.TrendPointDTO;
+import com.echobody.model.UserRollup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of the progress and dashboard paths, including the aggregation
+ * pipelines on the server. Run with the gc profiler to see allocation per call:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ProgressBenchmark -prof gc -p size=100,10000"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProgressBenchmark {
+
+    @Benchmark
+    public int longestStreak(WorkoutHistory history) {
+        return history.progressService.getLongestStreak(history.userId, null, null);
+    }
+
+    @Benchmark
+    public List<TrendPointDTO> trend(WorkoutHistory history) {
+        return history.progressService.getTrend(history.userId, null, null);
+    }
+
+    @Benchmark
+    public List<PersonalRecordDTO> personalRecords(WorkoutHistory history) {
+        return history.progressService.getRecords(history.userId, null, null);
+    }
+
+    @Benchmark
+    public ProgressSummaryDTO progressSummary(WorkoutHistory history) {
+        return history.progressService.getSummary(history.userId, null, null);
+    }
+
+    // Request path: reads the rollup and latest mood concurrently
+    @Benchmark
+    public DashboardSummary dashboardSummary(WorkoutHistory history) {
+        return history.dashboardService.getSummary(history.userId);
+    }
+
+    // Cold-start and nightly repair path: recomputes the rollup from the raw collections
+    @Benchmark
+    public UserRollup rollupRebuild(WorkoutHistory history) {
+        return history.rollupService.rebuild(history.userId);
+    }
+}
@@ -0,0 +1,191 @@
+package com.echobody.benchmark;
+
+import com.echobody.model.MoodEntry;
+import com.echobody.model.Workout;
+import com.echobody.model.WorkoutBucket;
+import com.echobody.repository.BucketWorkoutStore;
+import com.echobody.repository.DocumentWorkoutStore;
+import com.echobody.repository.MoodRepository;
+import com.echobody.repository.WorkoutRepository;
+import com.echobody.repository.WorkoutStore;
+import com.echobody.service.DashboardService;
+import com.echobody.service.FanOut;
+import com.echobody.service.ProgressService;
+import com.echobody.service.RollupService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * A synthetic workout history of {@code size} workouts in a dedicated database, with the
+ * services wired by hand. Histories are seeded once and reused by later runs; the Mongo
+ * URI comes from {@code JMH_MONGO_URI} (default mongodb://localhost:27017). With
+ * {@code storage=bucket} the same history is copied into weekly buckets and read from there.
+ */
+@State(Scope.Benchmark)
+public class WorkoutHistory {
+
+    private static final String DATABASE = "echobody_jmh";
+    private static final String[] EXERCISES = {
+            "Bench Press", "Squat", "Deadlift", "Overhead Press", "Barbell Row", "Pull Up", "Dip", "Lunge",
+            "Leg Press", "Bicep Curl", "Tricep Extension", "Lat Pulldown", "Calf Raise", "Hip Thrust",
+            "Face Pull", "Chest Fly", "Romanian Deadlift", "Front Squat", "Incline Press", "Shrug"
+    };
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"document", "bucket"})
+    public String storage;
+
+    public String userId;
+    public WorkoutStore workoutStore;
+    public ProgressService progressService;
+    public RollupService rollupService;
+    public DashboardService dashboardService;
+
+    private MongoClient client;
+    private ExecutorService fanOutExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String uri = System.getenv().getOrDefault("JMH_MONGO_URI", "mongodb://localhost:27017");
+        client = MongoClients.create(uri);
+        MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+        userId = "jmh-" + size + "@example.com";
+
+        ensureIndexes(mongoTemplate);
+        seed(mongoTemplate);
+
+        WorkoutRepository workoutRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(WorkoutRepository.class);
+        if (storage.equals("bucket")) {
+            BucketWorkoutStore buckets = new BucketWorkoutStore(mongoTemplate, BucketWorkoutStore.Period.WEEK);
+            seedBuckets(mongoTemplate, workoutRepository, buckets);
+            workoutStore = buckets;
+        } else {
+            workoutStore = new DocumentWorkoutStore(workoutRepository, mongoTemplate);
+        }
+
+        rollupService = new RollupService();
+        ReflectionTestUtils.setField(rollupService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(rollupService, "workoutStore", workoutStore);
+
+        progressService = new ProgressService();
+        ReflectionTestUtils.setField(progressService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(progressService, "rollupService", rollupService);
+        ReflectionTestUtils.setField(progressService, "workoutStore", workoutStore);
+
+        fanOutExecutor = Executors.newFixedThreadPool(4);
+        dashboardService = new DashboardService();
+        ReflectionTestUtils.setField(dashboardService, "rollupService", rollupService);
+        ReflectionTestUtils.setField(dashboardService, "moodRepository",
+                new MongoRepositoryFactory(mongoTemplate).getRepository(MoodRepository.class));
+        ReflectionTestUtils.setField(dashboardService, "fanOut", new FanOut(fanOutExecutor));
+        ReflectionTestUtils.setField(dashboardService, "timeout", Duration.ofSeconds(30));
+
+        rollupService.rebuild(userId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fanOutExecutor.shutdownNow();
+        client.close();
+    }
+
+    private static void ensureIndexes(MongoTemplate mongoTemplate) {
+        IndexResolver resolver = IndexResolver.create(new MongoMappingContext());
+        for (Class<?> type : List.of(Workout.class, WorkoutBucket.class, MoodEntry.class)) {
+            resolver.resolveIndexFor(type).forEach(index -> mongoTemplate.indexOps(type).createIndex(index));
+        }
+    }
+
+    // About one workout a day with random rest days, ending today, so streaks and records vary
+    private void seed(MongoTemplate mongoTemplate) {
+        Query mine = Query.query(Criteria.where("userId").is(userId));
+        if (mongoTemplate.count(mine, Workout.class) == size) {
+            return;
+        }
+        mongoTemplate.remove(mine, Workout.class);
+        mongoTemplate.remove(mine, MoodEntry.class);
+
+        Random random = new Random(size);
+        LocalDateTime date = LocalDateTime.now().withHour(18).withMinute(0).withSecond(0).withNano(0);
+        List<Workout> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < size; i++) {
+            Workout workout = new Workout();
+            workout.setUserId(userId);
+            workout.setName(EXERCISES[random.nextInt(EXERCISES.length)]);
+            workout.setMuscleGroup("Mixed");
+            workout.setSets(3 + random.nextInt(3));
+            workout.setReps(5 + random.nextInt(8));
+            workout.setWeight(20 + random.nextInt(180));
+            workout.setCaloriesBurned(100 + random.nextInt(500));
+            workout.setDate(date);
+            chunk.add(workout);
+            if (chunk.size() == 10_000) {
+                insert(mongoTemplate, chunk);
+            }
+            date = date.minusMinutes(random.nextInt(4) == 0 ? 1440 * 2 : 90 + random.nextInt(1440));
+        }
+        insert(mongoTemplate, chunk);
+
+        MoodEntry mood = new MoodEntry();
+        mood.setUserId(userId);
+        mood.setMood("Good");
+        mood.setEnergy(7);
+        mood.setDate(LocalDateTime.now());
+        mongoTemplate.insert(mood);
+    }
+
+    private void seedBuckets(MongoTemplate mongoTemplate, WorkoutRepository workoutRepository,
+            BucketWorkoutStore buckets) {
+        Query mine = Query.query(Criteria.where("userId").is(userId));
+        List<WorkoutBucket> seeded = mongoTemplate.find(mine, WorkoutBucket.class);
+        if (seeded.stream().mapToLong(WorkoutBucket::getCount).sum() == size) {
+            return;
+        }
+        mongoTemplate.remove(mine, WorkoutBucket.class);
+
+        List<Workout> chunk = new ArrayList<>(10_000);
+        try (Stream<Workout> workouts = workoutRepository.streamByUserIdOrderByDateAsc(userId)) {
+            workouts.forEach(workout -> {
+                chunk.add(workout);
+                if (chunk.size() == 10_000) {
+                    buckets.insertAll(chunk);
+                    chunk.clear();
+                }
+            });
+        }
+        buckets.insertAll(chunk);
+    }
+
+    private static void insert(MongoTemplate mongoTemplate, List<Workout> chunk) {
+        if (!chunk.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Workout.class).insert(chunk).execute();
+            chunk.clear();
+        }
+    }
+}
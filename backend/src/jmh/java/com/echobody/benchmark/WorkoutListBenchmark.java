@@ -0,0 +1,61 @@
+package com.echobody.benchmark;
+
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Workout reads on the document and bucket layouts:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="WorkoutListBenchmark -p size=10000,100000"}.
+ * Collection and index sizes for both layouts are logged by the bucket migration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WorkoutListBenchmark {
+
+    private static final ListQuery FIRST_PAGE = new ListQuery();
+
+    @Benchmark
+    public Slice<WorkoutSummary> newestPage(WorkoutHistory history) {
+        return history.workoutStore.findPage(history.userId, FIRST_PAGE.fromTime(), FIRST_PAGE.toTime(),
+                FIRST_PAGE.pageable(Sort.Direction.DESC, "date"));
+    }
+
+    // A month of history, as the list screen's date filter asks for
+    @Benchmark
+    public Slice<WorkoutSummary> monthPage(WorkoutHistory history) {
+        LocalDate from = LocalDate.now().minusMonths(1);
+        return history.workoutStore.findPage(history.userId, from.atStartOfDay(),
+                LocalDate.now().plusDays(1).atStartOfDay(), FIRST_PAGE.pageable(Sort.Direction.DESC, "date"));
+    }
+
+    @Benchmark
+    public List<WorkoutSummary> fullHistory(WorkoutHistory history) {
+        return history.workoutStore.findByUser(history.userId);
+    }
+
+    // Export path: every workout, oldest first, through a cursor
+    @Benchmark
+    public long exportStream(WorkoutHistory history) {
+        try (Stream<Workout> workouts = history.workoutStore.streamByUser(history.userId)) {
+            return workouts.count();
+        }
+    }
+}
@@ -1,12 +1,35 @@
 package com.echobody;
 
+import com.echobody.config.DataVersionEtagInterceptor;
+import com.echobody.config.RequestDocumentsInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final RequestDocumentsInterceptor requestDocumentsInterceptor;
+    private final DataVersionEtagInterceptor dataVersionEtagInterceptor;
+
+    public WebConfig(RequestDocumentsInterceptor requestDocumentsInterceptor,
+            DataVersionEtagInterceptor dataVersionEtagInterceptor) {
+        this.requestDocumentsInterceptor = requestDocumentsInterceptor;
+        this.dataVersionEtagInterceptor = dataVersionEtagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestDocumentsInterceptor).addPathPatterns("/api/**");
+        // Reads that depend only on the user's workouts, meals and mood entries
+        registry.addInterceptor(dataVersionEtagInterceptor).addPathPatterns(
+                "/api/dashboard/**", "/api/progress/**", "/api/workouts", "/api/meals", "/api/mood",
+                "/api/mood/insights", "/api/reactive/**")
+                // Long-lived; a stream is never answered with 304
+                .excludePathPatterns("/api/dashboard/stream");
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -0,0 +1,243 @@
+package com.echobody.config;
+
+import com.echobody.service.UserDataChangedEvent;
+import com.mongodb.CursorType;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries cache invalidations between nodes. Every local UserDataChangedEvent is
+ * appended (user id and data type) to the capped cache_invalidations collection, which
+ * every node tails; entries from other nodes are republished locally as remote events,
+ * so the per-node caches listening for the event (users, mood insights, macro periods,
+ * dashboard streams) drop what the write changed. Enabled with
+ * {@code app.cache-bus.enabled=true}; a single node does not need it.
+ * <p>
+ * The tailing cursor waits on the server, so an entry reaches the other nodes within one
+ * round-trip of being written. The delay from write to eviction is recorded as
+ * cache.invalidation.lag; it is measured with each node's clock, so skew between nodes
+ * shows up in it. After a reconnect tailing resumes behind the last entry read; if that
+ * entry has been overwritten meanwhile, everything still held is applied, which only
+ * evicts more than needed.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache-bus.enabled", havingValue = "true")
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String COLLECTION = "cache_invalidations";
+    private static final long RETRY_MILLIS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSize size;
+    private final long maxDocuments;
+    private final Timer lag;
+    private final Counter published;
+    // Tells this node's entries apart from the others'
+    private final String node = new ObjectId().toHexString();
+
+    private volatile boolean running;
+    private Thread thread;
+    // The newest entry read, or this node's startup marker; tailing resumes after it
+    private volatile ObjectId last;
+
+    public CacheInvalidationBus(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry, @Value("${app.cache-bus.size:8MB}") DataSize size,
+            @Value("${app.cache-bus.max-documents:50000}") long maxDocuments) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.size = size;
+        this.maxDocuments = maxDocuments;
+        this.lag = Timer.builder("cache.invalidation.lag")
+                .description("Time from a write on another node to its eviction on this one")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.published = Counter.builder("cache.invalidation.published")
+                .description("Invalidations sent to the other nodes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            try {
+                mongoTemplate.createCollection(COLLECTION,
+                        CollectionOptions.empty().capped().size(size.toBytes()).maxDocuments(maxDocuments));
+            } catch (MongoException ex) {
+                // Another node created it first
+                log.debug("Could not create {}: {}", COLLECTION, ex.getMessage());
+            }
+        }
+        // A marker of our own: tailing starts after it, and a tailable cursor needs a
+        // non-empty collection to stay open
+        last = append(new Document("node", node).append("at", new Date()));
+
+        running = true;
+        thread = new Thread(this::tail, "cache-invalidation-bus");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (event.isRemote() || !running) {
+            return;
+        }
+        try {
+            append(new Document("node", node)
+                    .append("userId", event.getUserId())
+                    .append("type", event.getType().name())
+                    .append("at", new Date()));
+            published.increment();
+        } catch (MongoException ex) {
+            // The write itself succeeded; other nodes catch up when their caches expire
+            log.warn("Could not publish the invalidation for {}", event.getUserId(), ex);
+        }
+    }
+
+    private ObjectId append(Document entry) {
+        ObjectId id = new ObjectId();
+        collection().insertOne(entry.append("_id", id));
+        return id;
+    }
+
+    // Republishes another node's entry as a remote event
+    void deliver(Document entry) {
+        if (node.equals(entry.getString("node")) || entry.getString("userId") == null) {
+            return;
+        }
+        UserDataChangedEvent.DataType type;
+        try {
+            type = UserDataChangedEvent.DataType.valueOf(entry.getString("type"));
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            // Written by a newer version of the app
+            log.debug("Ignoring invalidation of unknown type {}", entry.getString("type"));
+            return;
+        }
+        eventPublisher.publishEvent(new UserDataChangedEvent(entry.getString("userId"), type, true));
+        if (entry.get("at") instanceof Date at) {
+            lag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - at.getTime())));
+        }
+    }
+
+    private void tail() {
+        MongoCursor<Document> cursor = null;
+        while (running) {
+            try {
+                if (cursor == null) {
+                    cursor = open();
+                }
+                Document entry = cursor.tryNext();
+                if (entry != null) {
+                    last = entry.getObjectId("_id");
+                    deliver(entry);
+                } else if (cursor.getServerCursor() == null) {
+                    // Dead cursor: the collection was dropped or emptied
+                    cursor.close();
+                    cursor = null;
+                    Thread.sleep(RETRY_MILLIS);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Cache invalidation bus failed, reopening", ex);
+                close(cursor);
+                cursor = null;
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        close(cursor);
+    }
+
+    /**
+     * Opens a cursor positioned after the last entry seen. Ids come from each node's
+     * clock, so entries are located by insertion order instead of by comparing ids. If
+     * that entry has already been overwritten, everything still in the collection is
+     * delivered.
+     */
+    private MongoCursor<Document> open() {
+        MongoCursor<Document> cursor = collection().find()
+                .cursorType(CursorType.TailableAwait)
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor();
+        List<Document> unseen = new ArrayList<>();
+        Document entry;
+        while ((entry = cursor.tryNext()) != null) {
+            if (entry.getObjectId("_id").equals(last)) {
+                unseen.clear();
+                return cursor;
+            }
+            unseen.add(entry);
+        }
+        log.warn("Last read entry of {} was overwritten while reconnecting; applying the {} still held",
+                COLLECTION, unseen.size());
+        for (Document missed : unseen) {
+            last = missed.getObjectId("_id");
+            deliver(missed);
+        }
+        return cursor;
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+
+    private static void close(MongoCursor<Document> cursor) {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            } catch (RuntimeException ignored) {
+                // Already broken
+            }
+        }
+    }
+}
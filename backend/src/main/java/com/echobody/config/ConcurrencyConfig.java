@@ -0,0 +1,67 @@
+package com.echobody.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for fanning out independent repository calls within one request.
+ * With {@code spring.threads.virtual.enabled=true} on a JDK that has virtual threads,
+ * every call gets its own virtual thread (Boot moves Tomcat onto virtual threads under
+ * the same property). Otherwise calls run inline on the request thread, as they did
+ * before fan-out: a shared platform pool would only queue Tomcat's request threads
+ * behind a handful of workers. Tasks run elsewhere keep counting toward the request's
+ * Mongo documents.
+ */
+@Configuration
+public class ConcurrencyConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyConfig.class);
+
+    @Bean
+    public Executor fanOutExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.fanout.pool-size:32}") int poolSize) {
+        if (!virtualThreads) {
+            return Runnable::run;
+        }
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null) {
+            log.info("Fan-out calls run on virtual threads");
+            return task -> virtual.execute(MongoDocumentMetrics.propagate(task));
+        }
+        log.warn("Virtual threads requested but not supported by Java {}; using a pool of {} threads",
+                Runtime.version().feature(), poolSize);
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threads = task -> {
+            Thread thread = new Thread(task, "fanout-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // A full pool runs the call on the request thread rather than queueing it past its timeout
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize), threads, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return task -> executor.execute(MongoDocumentMetrics.propagate(task));
+    }
+
+    // Looked up reflectively so the build keeps targeting Java 17
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.echobody.config;
+
+import com.echobody.model.Workout;
+import com.echobody.repository.BucketWorkoutStore;
+import com.echobody.repository.WorkoutStore;
+import com.echobody.service.DailyStatsService;
+import com.echobody.service.DataVersionService;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps user_daily_stats current by tailing change streams on the workout, meal and mood
+ * collections, one thread each. Enabled with {@code app.daily-stats.enabled=true}; change
+ * streams need a replica set (a single-node one is enough).
+ * <p>
+ * Delivery is at least once: an event is applied, then its resume token is saved in
+ * change_stream_tokens, and a restart resumes after the last saved token. Applying an
+ * event recomputes the affected (user, day) from the source, so replays are harmless.
+ * Without a saved token, or once the oplog no longer holds it, that collection's fields
+ * are rebuilt in place from the source. Deletes are located through pre-images, which are
+ * switched on for the watched collections at startup; this needs MongoDB 6.0 or later.
+ * <p>
+ * Only one node consumes at a time. Every node competes for a lease in
+ * change_stream_tokens, timed by the server's clock and renewed every third of
+ * {@code app.daily-stats.lease-ttl}; the holder runs the watchers and stops them once it
+ * cannot renew, before the lease can pass to another node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.daily-stats.enabled", havingValue = "true")
+public class DailyStatsChangeStreams implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyStatsChangeStreams.class);
+
+    private static final String TOKENS = "change_stream_tokens";
+    private static final String LEASE = "user_daily_stats:lease";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final DailyStatsService dailyStatsService;
+    private final DataVersionService dataVersionService;
+    private final WorkoutStore workoutStore;
+    private final Duration leaseTtl;
+    // Tells this node's lease apart from the others'
+    private final String node = new ObjectId().toHexString();
+    private final List<Watcher> watchers = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile boolean consuming;
+    private Thread leaseThread;
+
+    public DailyStatsChangeStreams(MongoTemplate mongoTemplate, DailyStatsService dailyStatsService,
+            DataVersionService dataVersionService, WorkoutStore workoutStore,
+            @Value("${app.daily-stats.lease-ttl:30s}") Duration leaseTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.dailyStatsService = dailyStatsService;
+        this.dataVersionService = dataVersionService;
+        this.workoutStore = workoutStore;
+        this.leaseTtl = leaseTtl;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        leaseThread = new Thread(this::holdLease, "daily-stats-lease");
+        leaseThread.setDaemon(true);
+        leaseThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        leaseThread.interrupt();
+        try {
+            leaseThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Whether this node currently holds the lease and runs the watchers
+    boolean isConsuming() {
+        return consuming;
+    }
+
+    private void holdLease() {
+        long renewEvery = leaseTtl.toMillis() / 3;
+        long renewed = 0;
+        while (running) {
+            try {
+                if (acquireLease()) {
+                    renewed = System.nanoTime();
+                    if (!consuming) {
+                        log.info("Took the daily stats lease; consuming change streams on this node");
+                        startWatchers();
+                    }
+                } else if (consuming) {
+                    log.warn("Daily stats lease taken over by another node; stopping the watchers");
+                    stopWatchers();
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Could not renew the daily stats lease", ex);
+            }
+            // Stop while the lease is still ours, so two nodes never consume for long
+            if (consuming && System.nanoTime() - renewed > TimeUnit.MILLISECONDS.toNanos(2 * renewEvery)) {
+                log.warn("Daily stats lease not renewed in time; stopping the watchers");
+                stopWatchers();
+            }
+            try {
+                Thread.sleep(renewEvery);
+            } catch (InterruptedException ex) {
+                break;
+            }
+        }
+        // Cleared so the joins below are not cut short by stop()'s interrupt
+        Thread.interrupted();
+        stopWatchers();
+        try {
+            mongoTemplate.getCollection(TOKENS).deleteOne(Filters.and(Filters.eq("_id", LEASE),
+                    Filters.eq("node", node)));
+        } catch (MongoException ex) {
+            log.debug("Could not release the daily stats lease: {}", ex.getMessage());
+        }
+    }
+
+    // Takes the lease if it is free or expired, or renews it if it is ours
+    private boolean acquireLease() {
+        try {
+            mongoTemplate.getCollection(TOKENS).findOneAndUpdate(
+                    Filters.and(Filters.eq("_id", LEASE), Filters.or(Filters.eq("node", node),
+                            Filters.expr(new Document("$lt", List.of("$expiresAt", "$$NOW"))))),
+                    List.of(new Document("$set", new Document("node", node)
+                            .append("expiresAt", new Document("$add", List.of("$$NOW", leaseTtl.toMillis()))))),
+                    new FindOneAndUpdateOptions().upsert(true));
+            return true;
+        } catch (MongoException ex) {
+            // Held by another node: the filter missed and the upsert collided on _id
+            if (ex.getCode() == DUPLICATE_KEY) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    private void startWatchers() {
+        if (workoutStore instanceof BucketWorkoutStore buckets) {
+            watchers.add(new Watcher(BucketWorkoutStore.COLLECTION, event -> applyBucket(buckets, event),
+                    dailyStatsService::rebuildWorkouts));
+        } else {
+            watchers.add(new Watcher(workoutStore.collection(),
+                    event -> applyEntries(event, "date", dailyStatsService::applyWorkouts),
+                    dailyStatsService::rebuildWorkouts));
+        }
+        watchers.add(new Watcher("meals", event -> applyEntries(event, "dateTime", dailyStatsService::applyMeals),
+                dailyStatsService::rebuildMeals));
+        watchers.add(new Watcher("mood_entries", event -> applyEntries(event, "date", dailyStatsService::applyMood),
+                dailyStatsService::rebuildMood));
+
+        consuming = true;
+        for (Watcher watcher : watchers) {
+            watcher.thread = new Thread(watcher, "daily-stats-" + watcher.collection);
+            watcher.thread.setDaemon(true);
+            watcher.thread.start();
+        }
+    }
+
+    private void stopWatchers() {
+        consuming = false;
+        watchers.forEach(watcher -> watcher.active = false);
+        for (Watcher watcher : watchers) {
+            try {
+                watcher.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        watchers.clear();
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(String collection, BsonDocument token) {
+        var stream = mongoTemplate.getCollection(collection)
+                .watch(List.of(Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (token != null) {
+            stream.resumeAfter(token);
+        }
+        return stream.cursor();
+    }
+
+    // Recomputes each (user, day) the document was in before and after the change
+    private void applyEntries(ChangeStreamDocument<Document> event, String dateField,
+            BiConsumer<String, LocalDate> apply) {
+        Set<Map.Entry<String, LocalDate>> touched = new LinkedHashSet<>();
+        for (Document document : new Document[] {event.getFullDocumentBeforeChange(), event.getFullDocument()}) {
+            if (document != null && document.getString("userId") != null
+                    && document.get(dateField) instanceof Date date) {
+                touched.add(Map.entry(document.getString("userId"),
+                        LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).toLocalDate()));
+            }
+        }
+        if (touched.isEmpty()) {
+            log.debug("Skipping {} on {}: no document to locate it", event.getOperationType(), event.getNamespace());
+            return;
+        }
+        touched.forEach(entry -> apply.accept(entry.getKey(), entry.getValue()));
+        touched.stream().map(Map.Entry::getKey).distinct().forEach(dataVersionService::bump);
+    }
+
+    // The bucket id names the user and period; its current entries are the whole period
+    private void applyBucket(BucketWorkoutStore buckets, ChangeStreamDocument<Document> event) {
+        String id = event.getDocumentKey().getString("_id").getValue();
+        int separator = id.lastIndexOf('|');
+        String userId = id.substring(0, separator);
+        LocalDate start = LocalDate.parse(id.substring(separator + 1));
+
+        List<Workout> entries = new ArrayList<>();
+        Document bucket = event.getFullDocument();
+        if (bucket != null) {
+            bucket.getList("entries", Document.class, List.of())
+                    .forEach(entry -> entries.add(mongoTemplate.getConverter().read(Workout.class, entry)));
+        }
+        dailyStatsService.applyWorkoutBucket(userId, start, buckets.periodEnd(start), entries);
+        dataVersionService.bump(userId);
+    }
+
+    private void enablePreImages(String collection) {
+        try {
+            if (!mongoTemplate.collectionExists(collection)) {
+                mongoTemplate.createCollection(collection);
+            }
+            mongoTemplate.getDb().runCommand(new Document("collMod", collection)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        } catch (MongoException ex) {
+            log.warn("Pre-images unavailable on {}; deletes there will not reach daily stats: {}",
+                    collection, ex.getMessage());
+        }
+    }
+
+    private BsonDocument loadToken(String collection) {
+        BsonDocument saved = mongoTemplate.getCollection(TOKENS).withDocumentClass(BsonDocument.class)
+                .find(Filters.eq("_id", tokenKey(collection))).first();
+        return saved != null ? saved.getDocument("token") : null;
+    }
+
+    private void saveToken(String collection, BsonDocument token) {
+        if (token != null) {
+            mongoTemplate.getCollection(TOKENS).withDocumentClass(BsonDocument.class).replaceOne(
+                    Filters.eq("_id", tokenKey(collection)),
+                    new BsonDocument("_id", new BsonString(tokenKey(collection))).append("token", token),
+                    new ReplaceOptions().upsert(true));
+        }
+    }
+
+    private void forgetToken(String collection) {
+        mongoTemplate.getCollection(TOKENS).deleteOne(Filters.eq("_id", tokenKey(collection)));
+    }
+
+    private static String tokenKey(String collection) {
+        return "user_daily_stats:" + collection;
+    }
+
+    private final class Watcher implements Runnable {
+
+        private final String collection;
+        private final Consumer<ChangeStreamDocument<Document>> apply;
+        private final Runnable rebuild;
+        private volatile boolean active = true;
+        private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+        private Thread thread;
+
+        private Watcher(String collection, Consumer<ChangeStreamDocument<Document>> apply, Runnable rebuild) {
+            this.collection = collection;
+            this.apply = apply;
+            this.rebuild = rebuild;
+        }
+
+        @Override
+        public void run() {
+            BsonDocument saved = null;
+            while (active && !Thread.currentThread().isInterrupted()) {
+                try {
+                    if (cursor == null) {
+                        saved = resume();
+                    }
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    // Idle batches still advance the token, which keeps it inside the oplog window
+                    BsonDocument token = event != null ? event.getResumeToken() : cursor.getResumeToken();
+                    if (event != null) {
+                        apply.accept(event);
+                    }
+                    if (token != null && !token.equals(saved)) {
+                        saveToken(collection, token);
+                        saved = token;
+                    }
+                } catch (RuntimeException ex) {
+                    if (!active) {
+                        break;
+                    }
+                    recover(ex);
+                }
+            }
+            closeCursor();
+        }
+
+        // Opens the stream after the saved token. Without one this collection's fields are
+        // rebuilt; the cursor opens first, so changes made during the rebuild are replayed
+        // afterwards, and the other watchers keep applying their own fields meanwhile
+
+        private BsonDocument resume() {
+            enablePreImages(collection);
+            BsonDocument token = loadToken(collection);
+            cursor = open(collection, token);
+            if (token == null) {
+                log.info("Building daily stats from {}", collection);
+                rebuild.run();
+                token = cursor.getResumeToken();
+                saveToken(collection, token);
+            }
+            return token;
+        }
+
+        private void recover(RuntimeException ex) {
+            boolean historyLost = ex instanceof MongoCommandException command
+                    && command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST;
+            log.warn("Daily stats stream on {} failed{}", collection,
+                    historyLost ? "; its resume point is gone, rebuilding" : ", reopening", ex);
+            closeCursor();
+            try {
+                if (historyLost) {
+                    forgetToken(collection);
+                }
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException forget) {
+                log.warn("Could not drop the lost resume token of {}", collection, forget);
+            }
+        }
+
+        private void closeCursor() {
+            if (cursor != null) {
+                try {
+                    cursor.close();
+                } catch (RuntimeException ignored) {
+                    // Already broken
+                }
+                cursor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.echobody.config;
+
+import com.echobody.model.DataVersion;
+import com.echobody.security.UserPrincipal;
+import com.echobody.service.DataVersionService;
+import com.echobody.service.StreakService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Conditional GETs for endpoints whose responses depend only on the user's data and
+ * the current day. The ETag is built from the user's data version, so a matching
+ * If-None-Match is answered with 304 before the handler, and any query, runs.
+ */
+@Component
+public class DataVersionEtagInterceptor implements HandlerInterceptor {
+
+    private final DataVersionService dataVersionService;
+
+    public DataVersionEtagInterceptor(DataVersionService dataVersionService) {
+        this.dataVersionService = dataVersionService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            return true;
+        }
+
+        DataVersion version = dataVersionService.current(principal.getUsername());
+        String etag = etagOf(version, StreakService.zoneOf(principal.getTimezone()), Instant.now());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.AUTHORIZATION);
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The dates are part of the tag because "today" and "this week" figures roll over at
+     * midnight: totals at the server's, streaks at the user's.
+     */
+    static String etagOf(DataVersion version, ZoneId userZone, Instant now) {
+        LocalDate serverDay = LocalDate.ofInstant(now, ZoneId.systemDefault());
+        LocalDate userDay = LocalDate.ofInstant(now, userZone);
+        return "W/\"" + version.getEpoch() + "-" + version.getVersion() + "-" + serverDay + "-" + userDay + "\"";
+    }
+
+    // Weak comparison, as If-None-Match requires
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || stripWeak(candidate).equals(opaque));
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,15 @@
+package com.echobody.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Applies to the blocking and reactive clients alike
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoDocumentMetricsCustomizer(MongoDocumentMetrics documentMetrics) {
+        return settings -> settings.addCommandListener(documentMetrics);
+    }
+}
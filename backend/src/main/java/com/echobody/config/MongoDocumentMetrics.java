@@ -0,0 +1,103 @@
+package com.echobody.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how many documents each Mongo command returns. Command latency is already
+ * timed by Boot as {@code mongodb.driver.commands}. Documents are also added to the
+ * current request's total while {@link #startRequest()} is active on the thread; the
+ * blocking driver reports commands on the thread that issued them, and tasks wrapped
+ * with {@link #propagate} carry the request's total to the thread they run on.
+ */
+@Component
+public class MongoDocumentMetrics implements CommandListener {
+
+    private static final ThreadLocal<AtomicLong> REQUEST_DOCUMENTS = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    // One summary per command name, registered on first use
+    private final Map<String, DistributionSummary> returned = new ConcurrentHashMap<>();
+
+    public MongoDocumentMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        int documents = returnedDocuments(event.getResponse());
+        if (documents < 0) {
+            return;
+        }
+        returned.computeIfAbsent(event.getCommandName(), command ->
+                DistributionSummary.builder("mongodb.driver.documents.returned")
+                        .baseUnit("documents")
+                        .tag("command", command)
+                        .register(meterRegistry))
+                .record(documents);
+
+        AtomicLong requestTotal = REQUEST_DOCUMENTS.get();
+        if (requestTotal != null) {
+            requestTotal.addAndGet(documents);
+        }
+    }
+
+    public static void startRequest() {
+        REQUEST_DOCUMENTS.set(new AtomicLong());
+    }
+
+    // Returns -1 when no request was started on this thread
+    public static long finishRequest() {
+        AtomicLong requestTotal = REQUEST_DOCUMENTS.get();
+        REQUEST_DOCUMENTS.remove();
+        return requestTotal != null ? requestTotal.get() : -1;
+    }
+
+    /**
+     * Wraps a task handed to another thread so the documents it loads count toward the
+     * request that submitted it.
+     */
+    public static Runnable propagate(Runnable task) {
+        AtomicLong requestTotal = REQUEST_DOCUMENTS.get();
+        if (requestTotal == null) {
+            return task;
+        }
+        return () -> {
+            AtomicLong previous = REQUEST_DOCUMENTS.get();
+            REQUEST_DOCUMENTS.set(requestTotal);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    REQUEST_DOCUMENTS.set(previous);
+                } else {
+                    REQUEST_DOCUMENTS.remove();
+                }
+            }
+        };
+    }
+
+    // Cursor replies (find, aggregate, getMore) carry their batch; other commands return no documents
+    static int returnedDocuments(BsonDocument response) {
+        if (response == null || !response.isDocument("cursor")) {
+            return -1;
+        }
+        BsonDocument cursor = response.getDocument("cursor");
+        for (String batch : new String[] { "firstBatch", "nextBatch" }) {
+            BsonValue value = cursor.get(batch);
+            if (value != null && value.isArray()) {
+                return value.asArray().size();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,227 @@
+package com.echobody.config;
+
+import com.echobody.model.Meal;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.PersonalRecord;
+import com.echobody.model.User;
+import com.echobody.model.UserDailyStats;
+import com.echobody.model.Workout;
+import com.echobody.model.WorkoutBucket;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates the indexes declared on the documents at startup, then explains every
+ * repository query and reports plans that scan the collection or sort in memory.
+ * Controlled by {@code app.mongo.index-verification}: off, log (default) or fail.
+ */
+@Component
+public class MongoIndexVerifier implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexVerifier.class);
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(User.class, Workout.class, WorkoutBucket.class,
+            Meal.class, MoodEntry.class, UserDailyStats.class, PersonalRecord.class);
+
+    // Filter values only shape the plan; nothing needs to match
+    private static final String PROBE_USER = "__index_probe__";
+
+    enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final Mode mode;
+
+    public MongoIndexVerifier(MongoTemplate mongoTemplate, MongoMappingContext mappingContext,
+            @Value("${app.mongo.index-verification:log}") String mode) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+
+        List<String> problems = new ArrayList<>();
+        try {
+            ensureIndexes();
+            for (QueryProbe probe : probes()) {
+                String problem = verify(probe);
+                if (problem != null) {
+                    problems.add(problem);
+                }
+            }
+        } catch (RuntimeException ex) {
+            if (mode == Mode.FAIL) {
+                throw new IllegalStateException("Index verification could not run", ex);
+            }
+            log.warn("Index verification could not run: {}", ex.getMessage());
+            return;
+        }
+
+        if (problems.isEmpty()) {
+            log.info("Index verification passed for all repository queries");
+        } else if (mode == Mode.FAIL) {
+            throw new IllegalStateException("Queries without a supporting index: " + problems);
+        } else {
+            problems.forEach(problem -> log.warn("Query without a supporting index: {}", problem));
+        }
+    }
+
+    private void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        for (Class<?> type : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+                indexOps.createIndex(index);
+            }
+        }
+    }
+
+    /**
+     * One probe per repository query method, mirroring the filter and sort it issues.
+     * Add a probe here when adding a repository query.
+     */
+    List<QueryProbe> probes() {
+        List<QueryProbe> probes = new ArrayList<>();
+        probes.add(new QueryProbe("UserRepository.findByEmail", "users",
+                new Document("email", "probe@example.com"), null));
+
+        probes.addAll(listingProbes("WorkoutRepository", "workouts", "date"));
+        probes.add(windowProbe("WorkoutStore.window", "workouts", "date"));
+        probes.add(new QueryProbe("WorkoutRepository.findByUserId", "workouts",
+                new Document("userId", PROBE_USER), null));
+
+        probes.addAll(bucketProbes());
+
+        probes.addAll(listingProbes("MealRepository", "meals", "dateTime"));
+        probes.add(windowProbe("ReactiveMealRepository", "meals", "dateTime"));
+        probes.add(new QueryProbe("MealRepository.findByUserId", "meals",
+                new Document("userId", PROBE_USER), null));
+
+        probes.addAll(listingProbes("MoodRepository", "mood_entries", "date"));
+        probes.add(new QueryProbe("MoodRepository.findFirstByUserIdOrderByDateDesc", "mood_entries",
+                new Document("userId", PROBE_USER), new Document("date", -1)));
+        probes.add(windowProbe("ReactiveMoodRepository", "mood_entries", "date"));
+
+        probes.add(new QueryProbe("PersonalRecordService.getRecords", "personal_records",
+                new Document("userId", PROBE_USER), new Document("name", 1)));
+        probes.add(new QueryProbe("DailyStatsService.getTrend", "user_daily_stats",
+                new Document("userId", PROBE_USER)
+                        .append("day", new Document("$gte", "2000-01-01").append("$lte", "2000-12-31"))
+                        .append("workouts", new Document("$gt", 0)),
+                new Document("day", 1)));
+        return probes;
+    }
+
+    private static List<QueryProbe> listingProbes(String repository, String collection, String dateField) {
+        Date now = new Date();
+        Document window = new Document("$gte", new Date(0)).append("$lt", now);
+        Document newestFirst = new Document(dateField, -1).append("_id", -1);
+        Document oldestFirst = new Document(dateField, 1).append("_id", 1);
+
+        return List.of(
+                new QueryProbe(repository + ".findByUserIdOrderBy" + capitalize(dateField) + "Desc", collection,
+                        new Document("userId", PROBE_USER), new Document(dateField, -1)),
+                new QueryProbe(repository + ".streamByUserIdOrderBy" + capitalize(dateField) + "Asc", collection,
+                        new Document("userId", PROBE_USER), new Document(dateField, 1)),
+                new QueryProbe(repository + ".findPage", collection,
+                        new Document("userId", PROBE_USER).append(dateField, window), newestFirst),
+                new QueryProbe(repository + ".findPageBefore", collection,
+                        new Document("userId", PROBE_USER).append(dateField, window)
+                                .append("$or", List.of(
+                                        new Document(dateField, new Document("$lt", now)),
+                                        new Document(dateField, now).append("_id", new Document("$lt", "probe")))),
+                        newestFirst),
+                new QueryProbe(repository + ".findPageAfter", collection,
+                        new Document("userId", PROBE_USER).append(dateField, window)
+                                .append("$or", List.of(
+                                        new Document(dateField, new Document("$gt", now)),
+                                        new Document(dateField, now).append("_id", new Document("$gt", "probe")))),
+                        oldestFirst));
+    }
+
+    // BucketWorkoutStore selects buckets by user and start, or by an entry id
+    private static List<QueryProbe> bucketProbes() {
+        Document overlapping = new Document("userId", PROBE_USER)
+                .append("end", new Document("$gt", new Date(0)))
+                .append("start", new Document("$lt", new Date()));
+        return List.of(
+                new QueryProbe("BucketWorkoutStore.newestFirst", "workout_buckets", overlapping,
+                        new Document("start", -1)),
+                new QueryProbe("BucketWorkoutStore.findPageAfter", "workout_buckets", overlapping,
+                        new Document("start", 1)),
+                new QueryProbe("BucketWorkoutStore.findById", "workout_buckets",
+                        new Document("entries._id", new ObjectId()), null));
+    }
+
+    private static QueryProbe windowProbe(String repository, String collection, String dateField) {
+        return new QueryProbe(repository + ".findWindow", collection,
+                new Document("userId", PROBE_USER).append(dateField,
+                        new Document("$gte", new Date(0)).append("$lt", new Date())),
+                new Document(dateField, -1).append("_id", -1));
+    }
+
+    private String verify(QueryProbe probe) {
+        Document find = new Document("find", probe.collection()).append("filter", probe.filter());
+        if (probe.sort() != null) {
+            find.append("sort", probe.sort());
+        }
+        Document explain = mongoTemplate.getDb()
+                .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+
+        Object winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan");
+        List<String> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+
+        if (stages.contains("COLLSCAN")) {
+            return probe.name() + " scans the whole " + probe.collection() + " collection";
+        }
+        if (stages.contains("SORT")) {
+            return probe.name() + " sorts " + probe.collection() + " in memory";
+        }
+        log.debug("{} uses plan {}", probe.name(), stages);
+        return null;
+    }
+
+    // Plans nest as inputStage/inputStages (and queryPlan with the slot-based engine)
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    record QueryProbe(String name, String collection, Document filter, Document sort) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.echobody.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the number of Mongo documents loaded while handling each request, per URI
+ * pattern, as {@code http.server.requests.documents}. Calls fanned out by the request
+ * are counted; work done after an async handoff (streamed or reactive responses) happens
+ * on other threads and is not.
+ */
+@Component
+public class RequestDocumentsInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    // One summary per method and URI pattern, registered on first use
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RequestDocumentsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            MongoDocumentMetrics.startRequest();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        record(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        record(request);
+    }
+
+    private void record(HttpServletRequest request) {
+        long documents = MongoDocumentMetrics.finishRequest();
+        if (documents < 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String method = request.getMethod();
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        summaries.computeIfAbsent(method + " " + uri, key ->
+                DistributionSummary.builder("http.server.requests.documents")
+                        .baseUnit("documents")
+                        .tag("method", method)
+                        .tag("uri", uri)
+                        .register(meterRegistry))
+                .record(documents);
+    }
+}
@@ -0,0 +1,127 @@
+package com.echobody.config;
+
+import com.echobody.model.Workout;
+import com.echobody.repository.BucketWorkoutStore;
+import com.echobody.repository.WorkoutRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Copies the workouts collection into workout_buckets, user by user, while the
+ * application keeps serving. Enabled with {@code app.workouts.migrate=true}.
+ * <ol>
+ * <li>Run the application with {@code app.workouts.storage=dual}, so new writes land in both layouts.</li>
+ * <li>Run one instance with {@code app.workouts.migrate=true} (a non-web instance is enough).
+ * Copies are idempotent, and users whose counts disagree afterwards are copied again.</li>
+ * <li>Switch to {@code app.workouts.storage=bucket}. The workouts collection is left in place.</li>
+ * </ol>
+ * The log ends with the size of both collections and their indexes.
+ */
+@Component
+@ConditionalOnProperty(name = "app.workouts.migrate", havingValue = "true")
+public class WorkoutBucketMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkoutBucketMigration.class);
+
+    private static final int CHUNK = 500;
+
+    private final WorkoutRepository workoutRepository;
+    private final MongoTemplate mongoTemplate;
+    private final BucketWorkoutStore buckets;
+
+    public WorkoutBucketMigration(WorkoutRepository workoutRepository, MongoTemplate mongoTemplate,
+            @Value("${app.workouts.bucket-period:week}") String period) {
+        this.workoutRepository = workoutRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.buckets = WorkoutStoreConfig.buckets(mongoTemplate, period);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> userIds = mongoTemplate.findDistinct(new Query(), "userId", "workouts", String.class);
+        log.info("Migrating workouts of {} users to buckets", userIds.size());
+
+        int recopied = 0;
+        for (int i = 0; i < userIds.size(); i++) {
+            String userId = userIds.get(i);
+            copy(userId);
+            if (!verified(userId)) {
+                // A delete that raced the copy can leave a stale entry behind; start this user over
+                mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)),
+                        BucketWorkoutStore.COLLECTION);
+                copy(userId);
+                recopied++;
+                if (!verified(userId)) {
+                    log.warn("Bucket count for user {} still differs from the workouts collection", userId);
+                }
+            }
+            if ((i + 1) % 1000 == 0) {
+                log.info("Migrated {} of {} users", i + 1, userIds.size());
+            }
+        }
+        log.info("Migrated {} users ({} copied twice)", userIds.size(), recopied);
+
+        Document documents = collectionStats("workouts");
+        Document bucketed = collectionStats(BucketWorkoutStore.COLLECTION);
+        log.info("workouts: {} documents, {} bytes data, {} bytes storage, {} bytes indexes",
+                documents.get("count"), documents.get("size"), documents.get("storageSize"),
+                documents.get("totalIndexSize"));
+        log.info("workout_buckets: {} documents, {} bytes data, {} bytes storage, {} bytes indexes",
+                bucketed.get("count"), bucketed.get("size"), bucketed.get("storageSize"),
+                bucketed.get("totalIndexSize"));
+    }
+
+    private void copy(String userId) {
+        List<Workout> chunk = new ArrayList<>(CHUNK);
+        try (Stream<Workout> workouts = workoutRepository.streamByUserIdOrderByDateAsc(userId)) {
+            workouts.forEach(workout -> {
+                chunk.add(workout);
+                if (chunk.size() == CHUNK) {
+                    insert(userId, chunk);
+                }
+            });
+        }
+        insert(userId, chunk);
+    }
+
+    private void insert(String userId, List<Workout> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // Undated workouts have no bucket; they are left behind and not counted by verified()
+        chunk.removeIf(workout -> workout.getDate() == null);
+        buckets.insertAll(chunk).forEach((position, error) ->
+                log.warn("Could not copy a workout of user {}: {}", userId, error));
+        chunk.clear();
+    }
+
+    private boolean verified(String userId) {
+        long expected = mongoTemplate.count(Query.query(Criteria.where("userId").is(userId).and("date").ne(null)),
+                "workouts");
+        Document copied = mongoTemplate.aggregate(newAggregation(
+                match(Criteria.where("userId").is(userId)),
+                group().sum("count").as("count")), BucketWorkoutStore.COLLECTION, Document.class)
+                .getUniqueMappedResult();
+        Object count = copied != null ? copied.get("count") : null;
+        return expected == (count instanceof Number number ? number.longValue() : 0L);
+    }
+
+    private Document collectionStats(String collection) {
+        return mongoTemplate.getDb().runCommand(new Document("collStats", collection));
+    }
+}
@@ -0,0 +1,39 @@
+package com.echobody.config;
+
+import com.echobody.repository.BucketWorkoutStore;
+import com.echobody.repository.DocumentWorkoutStore;
+import com.echobody.repository.DualWriteWorkoutStore;
+import com.echobody.repository.WorkoutRepository;
+import com.echobody.repository.WorkoutStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Locale;
+
+/**
+ * Picks the workout layout from {@code app.workouts.storage}: document (default), bucket,
+ * or dual (document reads, writes to both) while migrating to buckets.
+ */
+@Configuration
+public class WorkoutStoreConfig {
+
+    @Bean
+    public WorkoutStore workoutStore(WorkoutRepository workoutRepository, MongoTemplate mongoTemplate,
+            @Value("${app.workouts.storage:document}") String storage,
+            @Value("${app.workouts.bucket-period:week}") String period) {
+        DocumentWorkoutStore documents = new DocumentWorkoutStore(workoutRepository, mongoTemplate);
+        return switch (storage.trim().toLowerCase(Locale.ROOT)) {
+            case "document" -> documents;
+            case "bucket" -> buckets(mongoTemplate, period);
+            case "dual" -> new DualWriteWorkoutStore(documents, buckets(mongoTemplate, period));
+            default -> throw new IllegalArgumentException("Unknown app.workouts.storage: " + storage);
+        };
+    }
+
+    static BucketWorkoutStore buckets(MongoTemplate mongoTemplate, String period) {
+        return new BucketWorkoutStore(mongoTemplate,
+                BucketWorkoutStore.Period.valueOf(period.trim().toUpperCase(Locale.ROOT)));
+    }
+}
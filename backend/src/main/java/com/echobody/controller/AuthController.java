@@ -6,23 +6,27 @@ import com.echobody.dto.RegisterRequest;
 import com.echobody.model.User;
 import com.echobody.repository.UserRepository;
 import com.echobody.security.JwtTokenProvider;
+import com.echobody.security.LoginAdmission;
+import com.echobody.security.UserPrincipal;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import com.echobody.dto.UserDto;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -32,29 +36,40 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final LoginAdmission loginAdmission;
 
     public AuthController(AuthenticationManager authenticationManager, UserRepository userRepository,
-            PasswordEncoder passwordEncoder, JwtTokenProvider tokenProvider) {
+            PasswordEncoder passwordEncoder, JwtTokenProvider tokenProvider, LoginAdmission loginAdmission) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenProvider = tokenProvider;
+        this.loginAdmission = loginAdmission;
     }
 
+    // The password check runs on the login pool; the request thread is released meanwhile
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@RequestBody LoginRequest loginRequest) {
+        try {
+            return loginAdmission.submit(() -> login(loginRequest));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginAdmission.getRetryAfter().toSeconds()))
+                    .body(Collections.singletonMap("message", "Too many login attempts, please retry shortly")));
+        }
+    }
+
+    private ResponseEntity<?> login(LoginRequest loginRequest) {
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
                             loginRequest.getPassword()));
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
             String jwt = tokenProvider.generateToken(authentication);
 
-            User user = userRepository.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+            // Loaded by the authentication itself; no second lookup
+            UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
             return ResponseEntity.ok(new AuthResponse(jwt, user.getId(), user.getName(), user.getEmail()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -90,19 +105,17 @@ public class AuthController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> me(Authentication authentication) {
-        if (authentication == null || authentication.getName() == null) {
+    public ResponseEntity<?> me(@AuthenticationPrincipal UserPrincipal user) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("Not found"));
         UserDto dto = new UserDto();
         dto.setId(user.getId());
         dto.setName(user.getName());
         dto.setEmail(user.getEmail());
         dto.setAge(user.getAge());
-        dto.setHeight_cm((int) user.getHeight_cm());
-        dto.setWeight_kg((int) user.getWeight_kg());
+        dto.setHeight_cm((int) user.getHeightCm());
+        dto.setWeight_kg((int) user.getWeightKg());
         dto.setGoal(user.getGoal());
         dto.setGender(user.getGender());
         return ResponseEntity.ok(dto);
@@ -0,0 +1,63 @@
+package com.echobody.controller;
+
+import com.echobody.security.UserPrincipal;
+import com.echobody.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "workouts,meals,mood") List<String> include,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        String userId = principal.getUsername();
+        ExportService.Format exportFormat = parse(ExportService.Format.class, format);
+        Set<ExportService.Section> sections = EnumSet.noneOf(ExportService.Section.class);
+        include.forEach(section -> sections.add(parse(ExportService.Section.class, section)));
+
+        String extension = exportFormat == ExportService.Format.CSV ? "csv" : "ndjson";
+        MediaType contentType = exportFormat == ExportService.Format.CSV
+                ? new MediaType("text", "csv")
+                : MediaType.APPLICATION_NDJSON;
+        if (gzip) {
+            extension += ".gz";
+            contentType = new MediaType("application", "gzip");
+        }
+
+        StreamingResponseBody body = out -> exportService.export(userId, exportFormat, sections, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"echobody-export." + extension + "\"")
+                .body(body);
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export option: " + value);
+        }
+    }
+}
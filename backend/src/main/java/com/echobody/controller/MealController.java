@@ -1,13 +1,27 @@
 package com.echobody.controller;
 
+import com.echobody.dto.BatchResult;
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.MacrosDTO;
 import com.echobody.model.Meal;
+import com.echobody.service.BatchIngestor;
+import com.echobody.service.MacroService;
 import com.echobody.service.MealService;
-import com.echobody.security.JwtTokenProvider;
+import com.echobody.service.UserService;
+import com.echobody.security.UserPrincipal;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/meals")
@@ -17,37 +31,68 @@ public class MealController {
     private MealService mealService;
 
     @Autowired
-    private JwtTokenProvider jwtTokenProvider;
+    private BatchIngestor batchIngestor;
+
+    @Autowired
+    private MacroService macroService;
+
+    @Autowired
+    private UserService userService;
 
     @GetMapping
-    public List<Meal> getMeals(@RequestHeader("Authorization") String token) {
-        String userId = getUserIdFromToken(token);
-        return mealService.getUserMeals(userId);
+    public ResponseEntity<?> getMeals(@AuthenticationPrincipal UserPrincipal principal, ListQuery query) {
+        String userId = principal.getUsername();
+        if (query.isPaged()) {
+            return ResponseEntity.ok(mealService.getUserMeals(userId, query));
+        }
+        // Unpaged compatibility mode: the full history
+        return ResponseEntity.ok(mealService.getUserMeals(userId));
+    }
+
+    // Not under the data-version ETag: targets also follow the profile's goal and zone
+    @GetMapping("/macros")
+    public MacrosDTO getMacros(@AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        MacroService.Granularity unit;
+        try {
+            unit = MacroService.Granularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown granularity: " + granularity);
+        }
+        return macroService.getMacros(userService.toUser(principal), from, to, unit);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Meal> getMeal(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String id) {
+        return ResponseEntity.of(mealService.getMeal(id, principal.getUsername()));
     }
 
     @PostMapping
-    public Meal createMeal(@RequestHeader("Authorization") String token, @RequestBody Meal meal) {
-        String userId = getUserIdFromToken(token);
+    public Meal createMeal(@AuthenticationPrincipal UserPrincipal principal, @RequestBody Meal meal) {
+        String userId = principal.getUsername();
         return mealService.logMeal(meal, userId);
     }
 
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public BatchResult createMeals(@AuthenticationPrincipal UserPrincipal principal, InputStream body)
+            throws IOException {
+        String userId = principal.getUsername();
+        return batchIngestor.ingest(body, Meal.class, chunk -> mealService.logMeals(chunk, userId));
+    }
+
     @PutMapping("/{id}")
-    public Meal updateMeal(@RequestHeader("Authorization") String token, @PathVariable String id,
+    public Meal updateMeal(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String id,
             @RequestBody Meal meal) {
-        String userId = getUserIdFromToken(token);
+        String userId = principal.getUsername();
         return mealService.updateMeal(id, meal, userId);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteMeal(@PathVariable String id) {
-        mealService.deleteMeal(id);
-        return ResponseEntity.ok().build();
-    }
-
-    private String getUserIdFromToken(String token) {
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
-        return jwtTokenProvider.getUserIdFromJWT(token);
+    public ResponseEntity<?> deleteMeal(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String id) {
+        return mealService.deleteMeal(id, principal.getUsername())
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 }
@@ -1,12 +1,18 @@
 package com.echobody.controller;
 
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.MoodInsightsDTO;
 import com.echobody.model.MoodEntry;
+import com.echobody.security.UserPrincipal;
+import com.echobody.service.MoodInsightsService;
 import com.echobody.service.MoodService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/mood")
@@ -14,18 +20,37 @@ public class MoodController {
     @Autowired
     private MoodService moodService;
 
+    @Autowired
+    private MoodInsightsService moodInsightsService;
+
     @GetMapping
-    public List<MoodEntry> getMoodEntries(Authentication authentication) {
-        return moodService.getMoodEntries(authentication.getName());
+    public ResponseEntity<?> getMoodEntries(ListQuery query, @AuthenticationPrincipal UserPrincipal principal) {
+        if (query.isPaged()) {
+            return ResponseEntity.ok(moodService.getMoodEntries(principal.getUsername(), query));
+        }
+        // Unpaged compatibility mode: the full history
+        return ResponseEntity.ok(moodService.getMoodEntries(principal.getUsername()));
+    }
+
+    // Daily and weekly mood and energy against training volume and calorie balance
+    @GetMapping("/insights")
+    public MoodInsightsDTO getInsights(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return moodInsightsService.getInsights(principal.getUsername(), from, to);
     }
 
     @PostMapping
-    public MoodEntry addMoodEntry(@RequestBody MoodEntry entry, Authentication authentication) {
-        return moodService.addMoodEntry(entry, authentication.getName());
+    public MoodEntry addMoodEntry(@RequestBody MoodEntry entry, @AuthenticationPrincipal UserPrincipal principal) {
+        return moodService.addMoodEntry(entry, principal.getUsername());
     }
 
     @DeleteMapping("/{id}")
-    public void deleteMoodEntry(@PathVariable String id) {
-        moodService.deleteMoodEntry(id);
+    public ResponseEntity<?> deleteMoodEntry(@PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return moodService.deleteMoodEntry(id, principal.getUsername())
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 }
@@ -0,0 +1,82 @@
+package com.echobody.controller;
+
+import com.echobody.dto.DashboardSummary;
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.MealSummary;
+import com.echobody.dto.PersonalRecordDTO;
+import com.echobody.dto.ProgressSummaryDTO;
+import com.echobody.dto.TrendPointDTO;
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.MoodEntry;
+import com.echobody.security.UserPrincipal;
+import com.echobody.service.ReactiveReadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Reactive variants of the read-heavy endpoints under /api/reactive. Request threads are
+ * released while Mongo works; lists stream as NDJSON by default, or as one JSON array
+ * with Accept: application/json. Enabled with {@code app.reactive.enabled}.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveReadController {
+
+    @Autowired
+    private ReactiveReadService reactiveReadService;
+
+    @GetMapping("/dashboard/summary")
+    public Mono<DashboardSummary> getDashboardSummary(@AuthenticationPrincipal UserPrincipal principal) {
+        return reactiveReadService.getDashboardSummary(principal.getUsername());
+    }
+
+    @GetMapping("/progress/summary")
+    public Mono<ProgressSummaryDTO> getProgressSummary(@AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return reactiveReadService.getProgressSummary(principal.getUsername(), from, to);
+    }
+
+    @GetMapping(value = "/progress/trend", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public Flux<TrendPointDTO> getTrend(@AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return reactiveReadService.getTrend(principal.getUsername(), from, to);
+    }
+
+    @GetMapping(value = "/progress/records", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public Flux<PersonalRecordDTO> getRecords(@AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return reactiveReadService.getRecords(principal.getUsername(), from, to);
+    }
+
+    @GetMapping(value = "/workouts", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public Flux<WorkoutSummary> getWorkouts(@AuthenticationPrincipal UserPrincipal principal, ListQuery query) {
+        return reactiveReadService.getWorkouts(principal.getUsername(), query);
+    }
+
+    @GetMapping(value = "/meals", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public Flux<MealSummary> getMeals(@AuthenticationPrincipal UserPrincipal principal, ListQuery query) {
+        return reactiveReadService.getMeals(principal.getUsername(), query);
+    }
+
+    @GetMapping(value = "/mood", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public Flux<MoodEntry> getMoodEntries(@AuthenticationPrincipal UserPrincipal principal, ListQuery query) {
+        return reactiveReadService.getMoodEntries(principal.getUsername(), query);
+    }
+}
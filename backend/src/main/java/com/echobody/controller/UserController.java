@@ -1,9 +1,10 @@
 package com.echobody.controller;
 
 import com.echobody.model.User;
+import com.echobody.security.UserPrincipal;
 import com.echobody.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -14,14 +15,12 @@ public class UserController {
     private UserService userService;
 
     @GetMapping("/profile")
-    public User getProfile(Authentication authentication) {
-        return userService.getUserByEmail(authentication.getName());
+    public User getProfile(@AuthenticationPrincipal UserPrincipal principal) {
+        return userService.toUser(principal);
     }
 
     @PutMapping("/profile")
-    public User updateProfile(@RequestBody User user, Authentication authentication) {
-        // authentication.getName() returns email because of CustomUserDetailsService
-        // loadUserByUsername
-        return userService.updateUserProfile(authentication.getName(), user);
+    public User updateProfile(@RequestBody User user, @AuthenticationPrincipal UserPrincipal principal) {
+        return userService.updateUserProfile(principal.getUsername(), user);
     }
 }
@@ -1,13 +1,19 @@
 package com.echobody.controller;
 
+import com.echobody.dto.BatchResult;
+import com.echobody.dto.ListQuery;
 import com.echobody.model.Workout;
+import com.echobody.service.BatchIngestor;
 import com.echobody.service.WorkoutService;
-import com.echobody.security.JwtTokenProvider;
+import com.echobody.security.UserPrincipal;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/api/workouts")
@@ -17,38 +23,48 @@ public class WorkoutController {
     private WorkoutService workoutService;
 
     @Autowired
-    private JwtTokenProvider jwtTokenProvider;
+    private BatchIngestor batchIngestor;
 
     @GetMapping
-    public List<Workout> getWorkouts(@RequestHeader("Authorization") String token) {
-        String userId = getUserIdFromToken(token);
-        return workoutService.getUserWorkouts(userId);
+    public ResponseEntity<?> getWorkouts(@AuthenticationPrincipal UserPrincipal principal, ListQuery query) {
+        String userId = principal.getUsername();
+        if (query.isPaged()) {
+            return ResponseEntity.ok(workoutService.getUserWorkouts(userId, query));
+        }
+        // Unpaged compatibility mode: the full history
+        return ResponseEntity.ok(workoutService.getUserWorkouts(userId));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Workout> getWorkout(@AuthenticationPrincipal UserPrincipal principal,
+            @PathVariable String id) {
+        return ResponseEntity.of(workoutService.getWorkout(id, principal.getUsername()));
     }
 
     @PostMapping
-    public Workout createWorkout(@RequestHeader("Authorization") String token, @RequestBody Workout workout) {
-        String userId = getUserIdFromToken(token);
+    public Workout createWorkout(@AuthenticationPrincipal UserPrincipal principal, @RequestBody Workout workout) {
+        String userId = principal.getUsername();
         return workoutService.logWorkout(workout, userId);
     }
 
+    @PostMapping(value = "/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public BatchResult createWorkouts(@AuthenticationPrincipal UserPrincipal principal, InputStream body)
+            throws IOException {
+        String userId = principal.getUsername();
+        return batchIngestor.ingest(body, Workout.class, chunk -> workoutService.logWorkouts(chunk, userId));
+    }
+
     @PutMapping("/{id}")
-    public Workout updateWorkout(@RequestHeader("Authorization") String token, @PathVariable String id,
+    public Workout updateWorkout(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String id,
             @RequestBody Workout workout) {
-        String userId = getUserIdFromToken(token);
+        String userId = principal.getUsername();
         return workoutService.updateWorkout(id, workout, userId);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteWorkout(@PathVariable String id) {
-        workoutService.deleteWorkout(id);
-        return ResponseEntity.ok().build();
-    }
-
-    private String getUserIdFromToken(String token) {
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
-        return jwtTokenProvider.getUserIdFromJWT(token); // Assuming subject is username/email, might need to look up
-                                                         // User ID if they differ
+    public ResponseEntity<?> deleteWorkout(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String id) {
+        return workoutService.deleteWorkout(id, principal.getUsername())
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 }
@@ -0,0 +1,35 @@
+package com.echobody.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch upload, with one entry per submitted item in submission order.
+ */
+@Data
+public class BatchResult {
+    private int accepted;
+    private int failed;
+    private List<Item> items = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private int index;
+        private String id;
+        private String error;
+
+        public static Item created(int index, String id) {
+            return new Item(index, id, null);
+        }
+
+        public static Item failed(int index, String error) {
+            return new Item(index, null, error);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.echobody.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a newest-first listing. Pass {@code nextCursor} as {@code before}
+ * to fetch older rows and {@code prevCursor} as {@code after} to fetch newer ones.
+ */
+@Data
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private String prevCursor;
+
+    /**
+     * Builds a page from a slice fetched newest-first, optionally below a {@code before} cursor.
+     */
+    public static <T> CursorPage<T> olderThan(Slice<T> slice, boolean fromCursor, Function<T, KeysetCursor> keyOf) {
+        CursorPage<T> page = new CursorPage<>();
+        page.setItems(slice.getContent());
+        if (!page.items.isEmpty()) {
+            if (slice.hasNext()) {
+                page.setNextCursor(keyOf.apply(page.items.get(page.items.size() - 1)).encode());
+            }
+            if (fromCursor) {
+                page.setPrevCursor(keyOf.apply(page.items.get(0)).encode());
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Builds a page from a slice fetched oldest-first above an {@code after} cursor;
+     * the items are returned newest-first like every other page.
+     */
+    public static <T> CursorPage<T> newerThan(Slice<T> slice, Function<T, KeysetCursor> keyOf) {
+        List<T> items = new ArrayList<>(slice.getContent());
+        Collections.reverse(items);
+
+        CursorPage<T> page = new CursorPage<>();
+        page.setItems(items);
+        if (!items.isEmpty()) {
+            page.setNextCursor(keyOf.apply(items.get(items.size() - 1)).encode());
+            if (slice.hasNext()) {
+                page.setPrevCursor(keyOf.apply(items.get(0)).encode());
+            }
+        }
+        return page;
+    }
+}
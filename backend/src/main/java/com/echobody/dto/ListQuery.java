@@ -0,0 +1,52 @@
+package com.echobody.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Query parameters shared by the list endpoints. When none are present the
+ * endpoint returns the full, unpaged history as before.
+ */
+@Data
+public class ListQuery {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // Open-ended ranges are bounded by dates every stored value falls between
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private Integer limit;
+    private String before;
+    private String after;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    public boolean isPaged() {
+        return limit != null || before != null || after != null || from != null || to != null;
+    }
+
+    public LocalDateTime fromTime() {
+        return from != null ? from.atStartOfDay() : MIN_DATE;
+    }
+
+    // Exclusive upper bound
+    public LocalDateTime toTime() {
+        return to != null ? to.plusDays(1).atStartOfDay() : MAX_DATE;
+    }
+
+    public Pageable pageable(Sort.Direction direction, String dateField) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return PageRequest.of(0, size, Sort.by(direction, dateField, "id"));
+    }
+}
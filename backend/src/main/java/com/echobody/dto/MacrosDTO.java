@@ -0,0 +1,48 @@
+package com.echobody.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calories and macros eaten per day, week (from Monday) or month in the user's zone,
+ * with each macro's share of calories and the difference from the goal's targets.
+ */
+@Data
+public class MacrosDTO {
+    private String granularity;
+    private String timezone;
+    private String from;
+    private String to;
+    private String goal;
+    private Macros dailyTarget;
+    private List<Period> periods = new ArrayList<>();
+
+    @Data
+    public static class Macros {
+        private long calories;
+        private long protein;
+        private long carbs;
+        private long fat;
+    }
+
+    @Data
+    public static class Period {
+        private String start;
+        // Last day of the period inside the requested range
+        private String end;
+        // Days counted towards the target; the current period only counts up to today
+        private int days;
+        private boolean current;
+        private long meals;
+        private Macros eaten;
+        private Macros target;
+        // eaten minus target
+        private Macros delta;
+        // Share of the macros' calories (4 kcal/g protein and carbs, 9 kcal/g fat); null without any
+        private Double proteinRatio;
+        private Double carbsRatio;
+        private Double fatRatio;
+    }
+}
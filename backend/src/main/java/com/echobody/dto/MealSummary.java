@@ -0,0 +1,21 @@
+package com.echobody.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A meal as list views show it: no owner, description or notes. Read with a field
+ * projection (MealRepository.SUMMARY_FIELDS); the whole meal comes from GET /api/meals/{id}.
+ */
+@Data
+public class MealSummary {
+    private String id;
+    private String title;
+    private int calories;
+    private int protein;
+    private int carbs;
+    private int fat;
+    private String type;
+    private LocalDateTime dateTime;
+}
@@ -0,0 +1,42 @@
+package com.echobody.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mood and energy per day and per week next to the same period's training volume
+ * (sets x reps x weight) and calorie balance (eaten minus burned). Days are those with
+ * a mood entry; weeks start on Monday and total every day in them.
+ */
+@Data
+public class MoodInsightsDTO {
+    private List<Day> days = new ArrayList<>();
+    private List<Week> weeks = new ArrayList<>();
+    // Pearson correlation over the mood days; null with fewer than three or no spread
+    private Double energyVsVolume;
+    private Double energyVsCalorieBalance;
+
+    @Data
+    public static class Day {
+        private String date;
+        // The last mood logged that day
+        private String mood;
+        private long moodEntries;
+        private double averageEnergy;
+        private double workoutVolume;
+        private long caloriesConsumed;
+        private long caloriesBurned;
+        private long calorieBalance;
+    }
+
+    @Data
+    public static class Week {
+        private String weekStart;
+        private long moodEntries;
+        private Double averageEnergy;
+        private double workoutVolume;
+        private long calorieBalance;
+    }
+}
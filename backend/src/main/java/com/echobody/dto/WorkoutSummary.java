@@ -0,0 +1,21 @@
+package com.echobody.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A workout as list views show it: no owner and no notes. Read with a field projection
+ * (WorkoutRepository.SUMMARY_FIELDS); the whole workout comes from GET /api/workouts/{id}.
+ */
+@Data
+public class WorkoutSummary {
+    private String id;
+    private String name;
+    private String muscleGroup;
+    private int sets;
+    private int reps;
+    private double weight;
+    private int caloriesBurned;
+    private LocalDateTime date;
+}
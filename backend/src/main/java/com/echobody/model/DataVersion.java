@@ -0,0 +1,19 @@
+package com.echobody.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Per-user counter bumped on every data write, used to build ETags. The id is the
+ * owning userId; epoch is fixed when the document is created, so versions that
+ * restart after the document is lost never repeat an earlier ETag.
+ */
+@Data
+@Document(collection = "data_versions")
+public class DataVersion {
+    @Id
+    private String id;
+    private String epoch;
+    private long version;
+}
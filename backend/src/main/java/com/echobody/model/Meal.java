@@ -2,12 +2,14 @@ package com.echobody.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "meals")
+@CompoundIndex(name = "user_datetime_idx", def = "{'userId': 1, 'dateTime': -1, '_id': -1}")
 public class Meal {
     @Id
     private String id;
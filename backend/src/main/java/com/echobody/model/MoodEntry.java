@@ -1,10 +1,12 @@
 package com.echobody.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document(collection = "mood_entries")
+@CompoundIndex(name = "user_date_idx", def = "{'userId': 1, 'date': -1, '_id': -1}")
 public class MoodEntry {
     @Id
     private String id;
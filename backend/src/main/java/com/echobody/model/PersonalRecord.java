@@ -0,0 +1,28 @@
+package com.echobody.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's heaviest workout for one exercise, kept current on every workout write. The
+ * id is "userId|key", where key is the trimmed, lower-cased exercise name. A row with no
+ * key marks that the user's records have been built from their history.
+ */
+@Data
+@Document(collection = "personal_records")
+@CompoundIndex(name = "user_name_idx", def = "{'userId': 1, 'name': 1}")
+public class PersonalRecord {
+    @Id
+    private String id;
+    private String userId;
+    private String key;
+    // As written on the record workout
+    private String name;
+    private String workoutId;
+    private double weight;
+    private LocalDateTime date;
+}
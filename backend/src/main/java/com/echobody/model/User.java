@@ -2,6 +2,7 @@ package com.echobody.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -9,6 +10,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class User {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String email;
     private String password;
     private String name;
@@ -17,4 +19,6 @@ public class User {
     private double weight_kg;
     private String goal;
     private String gender;
+    // IANA zone id, e.g. "Europe/Berlin"; streak days follow it. Unset means the server zone
+    private String timezone;
 }
@@ -0,0 +1,36 @@
+package com.echobody.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One user's totals for one calendar day (server zone), derived from the workouts, meals
+ * and mood entries by the change-stream consumer. The id is "userId|yyyy-MM-dd".
+ */
+@Data
+@Document(collection = "user_daily_stats")
+@CompoundIndex(name = "user_day_idx", def = "{'userId': 1, 'day': 1}")
+public class UserDailyStats {
+    @Id
+    private String id;
+    private String userId;
+    // ISO date (yyyy-MM-dd)
+    private String day;
+
+    private long workouts;
+    private long caloriesBurned;
+    // Trend score: 10 per workout plus calories/50
+    private long workoutPoints;
+
+    private long meals;
+    private long caloriesConsumed;
+    private long protein;
+    private long carbs;
+    private long fat;
+
+    private long moodEntries;
+    private long energyTotal;
+    private Double averageEnergy;
+}
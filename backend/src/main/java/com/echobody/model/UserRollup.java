@@ -0,0 +1,34 @@
+package com.echobody.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user running totals for the dashboard, kept up to date with $inc on every
+ * workout and meal write. The id is the owning userId.
+ */
+@Data
+@Document(collection = "user_rollups")
+public class UserRollup {
+    @Id
+    private String id;
+    private long totalWorkouts;
+    private long totalMeals;
+    private long totalCaloriesBurned;
+    private long totalCaloriesConsumed;
+
+    // Recent days only, keyed by ISO date (yyyy-MM-dd)
+    private Map<String, DayBucket> days = new HashMap<>();
+
+    @Data
+    public static class DayBucket {
+        private long workouts;
+        private long caloriesBurned;
+        private long meals;
+        private long caloriesConsumed;
+    }
+}
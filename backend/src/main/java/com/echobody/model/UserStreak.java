@@ -0,0 +1,26 @@
+package com.echobody.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Days on which a user logged a workout, as one bitset per year: years.{yyyy}.{word}
+ * holds days word*64+1 .. word*64+64 of that year, bit 0 first. Days are calendar days
+ * in the user's time zone. The id is the owning userId.
+ */
+@Data
+@Document(collection = "user_streaks")
+public class UserStreak {
+    @Id
+    private String id;
+    // Zone the days were computed in; changing the user's zone rebuilds the bitsets
+    private String zone;
+    private Map<String, Map<String, Long>> years = new HashMap<>();
+    private int longest;
+    // Bumped by every bit change, so only the latest writer stores its longest
+    private long version;
+}
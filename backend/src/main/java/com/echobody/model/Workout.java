@@ -2,12 +2,14 @@ package com.echobody.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "workouts")
+@CompoundIndex(name = "user_date_idx", def = "{'userId': 1, 'date': -1, '_id': -1}")
 public class Workout {
     @Id
     private String id;
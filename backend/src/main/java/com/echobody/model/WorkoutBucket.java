@@ -0,0 +1,44 @@
+package com.echobody.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One user's workouts for one week or month, used when {@code app.workouts.storage=bucket}.
+ * Entries are stored in workout form (including userId) and kept sorted by date, then id;
+ * the sums are recomputed from the entries on every write. The id is "userId|start".
+ */
+@Data
+@Document(collection = "workout_buckets")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_start_idx", def = "{'userId': 1, 'start': -1}"),
+        @CompoundIndex(name = "entry_id_idx", def = "{'entries._id': 1}")
+})
+public class WorkoutBucket {
+    @Id
+    private String id;
+    private String userId;
+    private LocalDateTime start;
+    // Exclusive
+    private LocalDateTime end;
+
+    private long count;
+    private long caloriesBurned;
+    // Heaviest weight per exercise, keyed by trimmed lower-case name
+    private List<ExerciseMax> maxWeights = new ArrayList<>();
+
+    private List<org.bson.Document> entries = new ArrayList<>();
+
+    @Data
+    public static class ExerciseMax {
+        private String name;
+        private double weight;
+    }
+}
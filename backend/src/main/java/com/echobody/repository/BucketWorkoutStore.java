@@ -0,0 +1,358 @@
+package com.echobody.repository;
+
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Workouts grouped into one document per user per week (Monday start) or month. A list
+ * page reads a handful of bucket documents instead of one document per workout, and the
+ * per-bucket sums are ready without touching the entries.
+ * <p>
+ * Writes are single-document pipeline updates, so a bucket and its sums always change
+ * together. Entries are sorted with $sortArray, which needs MongoDB 5.2 or later. A
+ * workout's date must not change after it is stored, since it selects the bucket.
+ */
+public class BucketWorkoutStore implements WorkoutStore {
+
+    public static final String COLLECTION = "workout_buckets";
+
+    public enum Period {
+        WEEK, MONTH
+    }
+
+    private static final Document UNWIND = new Document("$unwind", "$entries");
+    private static final Document TO_ENTRY = new Document("$replaceRoot", new Document("newRoot", "$entries"));
+    private static final Document TO_SUMMARY = new Document("$project",
+            Document.parse(WorkoutRepository.SUMMARY_FIELDS));
+    private static final Document NEWEST_ENTRY_FIRST = new Document("$project",
+            new Document("entries", new Document("$reverseArray", "$entries")));
+
+    private final MongoTemplate mongoTemplate;
+    private final Period period;
+
+    public BucketWorkoutStore(MongoTemplate mongoTemplate, Period period) {
+        this.mongoTemplate = mongoTemplate;
+        this.period = period;
+    }
+
+    @Override
+    public String collection() {
+        return COLLECTION;
+    }
+
+    @Override
+    public Aggregation over(String userId, LocalDate from, LocalDate to, Aggregation pipeline) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(match(bucketsOf(userId,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null)));
+        operations.add(stage(UNWIND));
+        operations.add(stage(TO_ENTRY));
+        operations.addAll(pipeline.getPipeline().getOperations());
+        return newAggregation(operations).withOptions(pipeline.getOptions());
+    }
+
+    @Override
+    public Aggregation window(String userId, LocalDateTime from, LocalDateTime to) {
+        List<AggregationOperation> operations = newestFirst(bucketsOf(userId, from, to));
+        operations.add(match(Criteria.where("date").gte(from).lt(to)));
+        return newAggregation(operations);
+    }
+
+    @Override
+    public List<WorkoutSummary> findByUser(String userId) {
+        List<AggregationOperation> operations = newestFirst(bucketsOf(userId, null, null));
+        operations.add(stage(TO_SUMMARY));
+        return aggregate(operations, WorkoutSummary.class);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        List<AggregationOperation> operations = newestFirst(bucketsOf(userId, from, to));
+        operations.add(match(Criteria.where("date").gte(from).lt(to)));
+        return slice(operations, pageable);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable) {
+        // Buckets starting after the cursor hold only newer workouts
+        List<AggregationOperation> operations = newestFirst(bucketsOf(userId, from, to, cursorDate));
+        operations.add(match(new Criteria().andOperator(
+                Criteria.where("date").gte(from).lt(to),
+                new Criteria().orOperator(
+                        Criteria.where("date").lt(cursorDate),
+                        Criteria.where("date").is(cursorDate).and("_id").lt(cursorId)))));
+        return slice(operations, pageable);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable) {
+        // Buckets ending at or before the cursor hold only older workouts
+        LocalDateTime after = cursorDate.isAfter(from) ? cursorDate : from;
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(match(bucketsOf(userId, after, to)));
+        operations.add(sort(Sort.Direction.ASC, "start"));
+        operations.add(stage(UNWIND));
+        operations.add(stage(TO_ENTRY));
+        operations.add(match(new Criteria().andOperator(
+                Criteria.where("date").gte(from).lt(to),
+                new Criteria().orOperator(
+                        Criteria.where("date").gt(cursorDate),
+                        Criteria.where("date").is(cursorDate).and("_id").gt(cursorId)))));
+        return slice(operations, pageable);
+    }
+
+    @Override
+    public Optional<Workout> findById(String id) {
+        if (!ObjectId.isValid(id)) {
+            return Optional.empty();
+        }
+        Criteria entry = Criteria.where("entries._id").is(new ObjectId(id));
+        List<Workout> found = aggregate(new ArrayList<>(List.of(
+                match(entry), stage(UNWIND), match(entry), stage(TO_ENTRY))), Workout.class);
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public Stream<Workout> streamByUser(String userId) {
+        Aggregation aggregation = newAggregation(
+                match(bucketsOf(userId, null, null)),
+                sort(Sort.Direction.ASC, "start"),
+                stage(UNWIND),
+                stage(TO_ENTRY));
+        return mongoTemplate.aggregateStream(aggregation, COLLECTION, Workout.class);
+    }
+
+    @Override
+    public Workout insert(Workout workout) {
+        if (workout.getId() == null) {
+            workout.setId(new ObjectId().toHexString());
+        }
+        LocalDate start = startOf(workout);
+        mongoTemplate.upsert(byId(workout.getUserId(), start),
+                append(workout.getUserId(), start, List.of(entryOf(workout))), COLLECTION);
+        return workout;
+    }
+
+    /**
+     * One upsert per bucket touched. Entries whose id is already in the bucket are left
+     * alone, so replaying a batch (or a migration pass) is harmless.
+     */
+    @Override
+    public Map<Integer, String> insertAll(List<Workout> workouts) {
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        Map<String, List<Document>> entries = new LinkedHashMap<>();
+        Map<String, Workout> firsts = new LinkedHashMap<>();
+        for (int i = 0; i < workouts.size(); i++) {
+            Workout workout = workouts.get(i);
+            String id = bucketId(workout.getUserId(), startOf(workout));
+            positions.computeIfAbsent(id, k -> new ArrayList<>()).add(i);
+            entries.computeIfAbsent(id, k -> new ArrayList<>()).add(entryOf(workout));
+            firsts.putIfAbsent(id, workout);
+        }
+
+        Map<Integer, String> errors = new LinkedHashMap<>();
+        if (entries.isEmpty()) {
+            return errors;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        List<String> order = new ArrayList<>(entries.keySet());
+        for (String id : order) {
+            Workout first = firsts.get(id);
+            LocalDate start = startOf(first);
+            bulk.upsert(byId(first.getUserId(), start), append(first.getUserId(), start, entries.get(id)));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException ex) {
+            ex.getErrors().forEach(error -> positions.get(order.get(error.getIndex()))
+                    .forEach(position -> errors.put(position, error.getMessage())));
+        }
+        return errors;
+    }
+
+    @Override
+    public Workout update(Workout workout) {
+        Document replace = new Document("$map", new Document("input", "$entries").append("as", "e")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$e._id", new ObjectId(workout.getId()))),
+                        new Document("$literal", entryOf(workout)),
+                        "$$e"))));
+        mongoTemplate.updateFirst(byId(workout.getUserId(), startOf(workout)),
+                rewrite(new Document("entries", replace)), COLLECTION);
+        return workout;
+    }
+
+    @Override
+    public Optional<Workout> delete(String id, String userId) {
+        Optional<Workout> found = findById(id).filter(workout -> userId.equals(workout.getUserId()));
+        if (found.isEmpty()) {
+            return found;
+        }
+        ObjectId entry = new ObjectId(id);
+        Document remaining = new Document("$filter", new Document("input", "$entries").append("as", "e")
+                .append("cond", new Document("$ne", List.of("$$e._id", entry))));
+        Query bucket = byId(userId, startOf(found.get()));
+        // Matching the entry too means only one of concurrent deletes modifies the bucket
+        UpdateResult result = mongoTemplate.updateFirst(Query.of(bucket).addCriteria(
+                Criteria.where("entries._id").is(entry)), rewrite(new Document("entries", remaining)), COLLECTION);
+        if (result.getModifiedCount() == 0) {
+            return Optional.empty();
+        }
+        mongoTemplate.remove(bucket.addCriteria(Criteria.where("count").is(0)), COLLECTION);
+        return found;
+    }
+
+    public LocalDate periodStart(LocalDate day) {
+        return period == Period.WEEK
+                ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : day.withDayOfMonth(1);
+    }
+
+    public LocalDate periodEnd(LocalDate start) {
+        return period == Period.WEEK ? start.plusWeeks(1) : start.plusMonths(1);
+    }
+
+    private LocalDate startOf(Workout workout) {
+        return periodStart(workout.getDate().toLocalDate());
+    }
+
+    // Buckets overlapping [from, to); null leaves that side (or the user) open
+    private static Criteria bucketsOf(String userId, LocalDateTime from, LocalDateTime to) {
+        return bucketsOf(userId, from, to, null);
+    }
+
+    private static Criteria bucketsOf(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime startAtMost) {
+        Criteria criteria = userId != null
+                ? Criteria.where("userId").is(userId)
+                : Criteria.where("userId").exists(true);
+        if (from != null) {
+            criteria.and("end").gt(from);
+        }
+        if (to != null || startAtMost != null) {
+            Criteria start = criteria.and("start");
+            if (to != null) {
+                start.lt(to);
+            }
+            if (startAtMost != null) {
+                start.lte(startAtMost);
+            }
+        }
+        return criteria;
+    }
+
+    // Newest bucket first, entries reversed so the unwound stream is newest first too
+    private static List<AggregationOperation> newestFirst(Criteria buckets) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(match(buckets));
+        operations.add(sort(Sort.Direction.DESC, "start"));
+        operations.add(stage(NEWEST_ENTRY_FIRST));
+        operations.add(stage(UNWIND));
+        operations.add(stage(TO_ENTRY));
+        return operations;
+    }
+
+    private Slice<WorkoutSummary> slice(List<AggregationOperation> operations, Pageable pageable) {
+        int size = pageable.getPageSize();
+        operations.add(limit(size + 1L));
+        operations.add(stage(TO_SUMMARY));
+        List<WorkoutSummary> rows = aggregate(operations, WorkoutSummary.class);
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    private <T> List<T> aggregate(List<AggregationOperation> operations, Class<T> type) {
+        return mongoTemplate.aggregate(newAggregation(operations), COLLECTION, type).getMappedResults();
+    }
+
+    private Query byId(String userId, LocalDate start) {
+        return Query.query(Criteria.where("_id").is(bucketId(userId, start)));
+    }
+
+    static String bucketId(String userId, LocalDate start) {
+        return userId + "|" + start;
+    }
+
+    private Document entryOf(Workout workout) {
+        Document entry = new Document();
+        mongoTemplate.getConverter().write(workout, entry);
+        entry.remove("_class");
+        return entry;
+    }
+
+    // Appends the entries not already present; creates the bucket when missing
+    private AggregationUpdate append(String userId, LocalDate start, List<Document> entries) {
+        Document fresh = new Document("$filter", new Document("input", new Document("$literal", entries))
+                .append("as", "n")
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$n._id",
+                        new Document("$ifNull", List.of("$entries._id", List.of()))))))));
+        return rewrite(new Document("userId", new Document("$literal", userId))
+                .append("start", mongoTemplate.getConverter().convertToMongoType(start.atStartOfDay()))
+                .append("end", mongoTemplate.getConverter().convertToMongoType(periodEnd(start).atStartOfDay()))
+                .append("entries", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$entries", List.of())), fresh))));
+    }
+
+    // Applies the entry change, then re-sorts the entries and recomputes the sums from them
+    private static AggregationUpdate rewrite(Document change) {
+        Document sorted = new Document("$sortArray", new Document("input", "$entries")
+                .append("sortBy", new Document("date", 1).append("_id", 1)));
+        Document names = new Document("$filter", new Document("input",
+                new Document("$map", new Document("input", "$entries").append("as", "e")
+                        .append("in", exerciseKey("$$e.name"))))
+                .append("as", "k")
+                .append("cond", new Document("$ne", List.of("$$k", ""))));
+        Document heaviest = new Document("$max", new Document("$map", new Document("input",
+                new Document("$filter", new Document("input", "$entries").append("as", "e")
+                        .append("cond", new Document("$eq", List.of(exerciseKey("$$e.name"), "$$k")))))
+                .append("as", "e")
+                .append("in", "$$e.weight")));
+        Document maxWeights = new Document("$map", new Document("input", new Document("$setUnion", List.of(names)))
+                .append("as", "k")
+                .append("in", new Document("name", "$$k").append("weight", heaviest)));
+
+        return AggregationUpdate.from(List.of(
+                stage(new Document("$set", change)),
+                stage(new Document("$set", new Document("entries", sorted))),
+                stage(new Document("$set", new Document("count", new Document("$size", "$entries"))
+                        .append("caloriesBurned", new Document("$sum", "$entries.caloriesBurned"))
+                        .append("maxWeights", maxWeights)))));
+    }
+
+    // Same key the personal-records pipeline groups by
+    private static Document exerciseKey(String name) {
+        return new Document("$toLower", new Document("$trim",
+                new Document("input", new Document("$ifNull", List.of(name, "")))));
+    }
+}
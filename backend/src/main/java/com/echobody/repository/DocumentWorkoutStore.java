@@ -0,0 +1,111 @@
+package com.echobody.repository;
+
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * One document per workout in the workouts collection (the original layout).
+ */
+public class DocumentWorkoutStore implements WorkoutStore {
+
+    private final WorkoutRepository workoutRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public DocumentWorkoutStore(WorkoutRepository workoutRepository, MongoTemplate mongoTemplate) {
+        this.workoutRepository = workoutRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public String collection() {
+        return "workouts";
+    }
+
+    @Override
+    public Aggregation over(String userId, LocalDate from, LocalDate to, Aggregation pipeline) {
+        return pipeline;
+    }
+
+    @Override
+    public Aggregation window(String userId, LocalDateTime from, LocalDateTime to) {
+        return newAggregation(
+                match(Criteria.where("userId").is(userId).and("date").gte(from).lt(to)),
+                sort(Sort.by(Sort.Order.desc("date"), Sort.Order.desc("_id"))));
+    }
+
+    @Override
+    public List<WorkoutSummary> findByUser(String userId) {
+        return workoutRepository.findByUserIdOrderByDateDesc(userId);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        return workoutRepository.findPage(userId, from, to, pageable);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable) {
+        return workoutRepository.findPageBefore(userId, from, to, cursorDate, cursorId, pageable);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable) {
+        return workoutRepository.findPageAfter(userId, from, to, cursorDate, cursorId, pageable);
+    }
+
+    @Override
+    public Optional<Workout> findById(String id) {
+        return workoutRepository.findById(id);
+    }
+
+    @Override
+    public Stream<Workout> streamByUser(String userId) {
+        return workoutRepository.streamByUserIdOrderByDateAsc(userId);
+    }
+
+    @Override
+    public Workout insert(Workout workout) {
+        return workoutRepository.save(workout);
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<Workout> workouts) {
+        Map<Integer, String> errors = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Workout.class).insert(workouts).execute();
+        } catch (BulkOperationException ex) {
+            ex.getErrors().forEach(error -> errors.put(error.getIndex(), error.getMessage()));
+        }
+        return errors;
+    }
+
+    @Override
+    public Workout update(Workout workout) {
+        return workoutRepository.save(workout);
+    }
+
+    @Override
+    public Optional<Workout> delete(String id, String userId) {
+        return workoutRepository.deleteByIdAndUserId(id, userId);
+    }
+}
@@ -0,0 +1,128 @@
+package com.echobody.repository;
+
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Reads from the document layout and writes to both layouts, for the duration of a
+ * migration to buckets. A failed bucket write is only logged; the migration's verify
+ * pass re-copies users whose counts disagree.
+ */
+public class DualWriteWorkoutStore implements WorkoutStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DualWriteWorkoutStore.class);
+
+    private final WorkoutStore primary;
+    private final BucketWorkoutStore buckets;
+
+    public DualWriteWorkoutStore(WorkoutStore primary, BucketWorkoutStore buckets) {
+        this.primary = primary;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public String collection() {
+        return primary.collection();
+    }
+
+    @Override
+    public Aggregation over(String userId, LocalDate from, LocalDate to, Aggregation pipeline) {
+        return primary.over(userId, from, to, pipeline);
+    }
+
+    @Override
+    public Aggregation window(String userId, LocalDateTime from, LocalDateTime to) {
+        return primary.window(userId, from, to);
+    }
+
+    @Override
+    public List<WorkoutSummary> findByUser(String userId) {
+        return primary.findByUser(userId);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        return primary.findPage(userId, from, to, pageable);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable) {
+        return primary.findPageBefore(userId, from, to, cursorDate, cursorId, pageable);
+    }
+
+    @Override
+    public Slice<WorkoutSummary> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable) {
+        return primary.findPageAfter(userId, from, to, cursorDate, cursorId, pageable);
+    }
+
+    @Override
+    public Optional<Workout> findById(String id) {
+        return primary.findById(id);
+    }
+
+    @Override
+    public Stream<Workout> streamByUser(String userId) {
+        return primary.streamByUser(userId);
+    }
+
+    @Override
+    public Workout insert(Workout workout) {
+        Workout saved = primary.insert(workout);
+        mirror("insert", saved, () -> buckets.insert(saved));
+        return saved;
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<Workout> workouts) {
+        Map<Integer, String> errors = primary.insertAll(workouts);
+        List<Workout> inserted = new ArrayList<>(workouts.size());
+        for (int i = 0; i < workouts.size(); i++) {
+            if (!errors.containsKey(i)) {
+                inserted.add(workouts.get(i));
+            }
+        }
+        Map<Integer, String> mirrorErrors = buckets.insertAll(inserted);
+        if (!mirrorErrors.isEmpty()) {
+            log.warn("Could not mirror {} of {} workouts to buckets: {}", mirrorErrors.size(), inserted.size(),
+                    mirrorErrors.values().iterator().next());
+        }
+        return errors;
+    }
+
+    @Override
+    public Workout update(Workout workout) {
+        Workout saved = primary.update(workout);
+        mirror("update", saved, () -> buckets.update(saved));
+        return saved;
+    }
+
+    @Override
+    public Optional<Workout> delete(String id, String userId) {
+        Optional<Workout> deleted = primary.delete(id, userId);
+        deleted.ifPresent(workout -> mirror("delete", workout, () -> buckets.delete(id, userId)));
+        return deleted;
+    }
+
+    private static void mirror(String operation, Workout workout, Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException ex) {
+            log.warn("Could not mirror {} of workout {} to buckets", operation, workout.getId(), ex);
+        }
+    }
+}
@@ -1,11 +1,45 @@
 package com.echobody.repository;
 
+import com.echobody.dto.MealSummary;
 import com.echobody.model.Meal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface MealRepository extends MongoRepository<Meal, String>, MealRepositoryCustom {
+
+    // Fields of MealSummary; list reads fetch only these
+    String SUMMARY_FIELDS = "{ 'title': 1, 'calories': 1, 'protein': 1, 'carbs': 1, 'fat': 1, 'type': 1, "
+            + "'dateTime': 1 }";
 
-public interface MealRepository extends MongoRepository<Meal, String> {
     List<Meal> findByUserId(String userId);
 
-    List<Meal> findByUserIdOrderByDateTimeDesc(String userId);
+    @Query(value = "{ 'userId': ?0 }", fields = SUMMARY_FIELDS, sort = "{ 'dateTime': -1 }")
+    List<MealSummary> findByUserIdOrderByDateTimeDesc(String userId);
+
+    // Keyset pages over (userId, dateTime, _id); from/to bound the window, the cursor splits ties on _id
+    @Query(value = "{ 'userId': ?0, 'dateTime': { $gte: ?1, $lt: ?2 } }", fields = SUMMARY_FIELDS)
+    Slice<MealSummary> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query(fields = SUMMARY_FIELDS, value = "{ 'userId': ?0, 'dateTime': { $gte: ?1, $lt: ?2 }, "
+            + "$or: [ { 'dateTime': { $lt: ?3 } }, { 'dateTime': ?3, '_id': { $lt: ?4 } } ] }")
+    Slice<MealSummary> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    @Query(fields = SUMMARY_FIELDS, value = "{ 'userId': ?0, 'dateTime': { $gte: ?1, $lt: ?2 }, "
+            + "$or: [ { 'dateTime': { $gt: ?3 } }, { 'dateTime': ?3, '_id': { $gt: ?4 } } ] }")
+    Slice<MealSummary> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    // Cursor-backed; callers must close the stream
+    Stream<Meal> streamByUserIdOrderByDateTimeAsc(String userId);
+
+    // Removes and returns the user's meal with this id; empty when the user has none
+    Optional<Meal> deleteByIdAndUserId(String id, String userId);
 }
@@ -0,0 +1,15 @@
+package com.echobody.repository;
+
+import com.echobody.model.Meal;
+
+import java.util.List;
+import java.util.Map;
+
+public interface MealRepositoryCustom {
+
+    /**
+     * Inserts meals that already carry ids with one unordered bulk write. Returns error
+     * messages keyed by position in {@code meals}.
+     */
+    Map<Integer, String> insertAll(List<Meal> meals);
+}
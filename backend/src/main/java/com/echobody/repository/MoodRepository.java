@@ -1,9 +1,38 @@
 package com.echobody.repository;
 
 import com.echobody.model.MoodEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MoodRepository extends MongoRepository<MoodEntry, String> {
     List<MoodEntry> findByUserIdOrderByDateDesc(String userId);
+
+    Optional<MoodEntry> findFirstByUserIdOrderByDateDesc(String userId);
+
+    // Keyset pages over (userId, date, _id); from/to bound the window, the cursor splits ties on _id
+    @Query("{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 } }")
+    Slice<MoodEntry> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query("{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 }, "
+            + "$or: [ { 'date': { $lt: ?3 } }, { 'date': ?3, '_id': { $lt: ?4 } } ] }")
+    Slice<MoodEntry> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    @Query("{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 }, "
+            + "$or: [ { 'date': { $gt: ?3 } }, { 'date': ?3, '_id': { $gt: ?4 } } ] }")
+    Slice<MoodEntry> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    // Cursor-backed; callers must close the stream
+    Stream<MoodEntry> streamByUserIdOrderByDateAsc(String userId);
+
+    // Removes and returns the user's mood entry with this id; empty when the user has none
+    Optional<MoodEntry> deleteByIdAndUserId(String id, String userId);
 }
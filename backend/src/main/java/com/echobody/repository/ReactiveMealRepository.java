@@ -0,0 +1,17 @@
+package com.echobody.repository;
+
+import com.echobody.dto.MealSummary;
+import com.echobody.model.Meal;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+public interface ReactiveMealRepository extends ReactiveMongoRepository<Meal, String> {
+
+    // Newest first over the same (userId, dateTime, _id) index as the paged listing
+    @Query(value = "{ 'userId': ?0, 'dateTime': { $gte: ?1, $lt: ?2 } }", sort = "{ 'dateTime': -1, '_id': -1 }",
+            fields = MealRepository.SUMMARY_FIELDS)
+    Flux<MealSummary> findWindow(String userId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,18 @@
+package com.echobody.repository;
+
+import com.echobody.model.MoodEntry;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ReactiveMoodRepository extends ReactiveMongoRepository<MoodEntry, String> {
+
+    // Newest first over the same (userId, date, _id) index as the paged listing
+    @Query(value = "{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 } }", sort = "{ 'date': -1, '_id': -1 }")
+    Flux<MoodEntry> findWindow(String userId, LocalDateTime from, LocalDateTime to);
+
+    Mono<MoodEntry> findFirstByUserIdOrderByDateDesc(String userId);
+}
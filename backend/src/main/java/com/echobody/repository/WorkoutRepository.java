@@ -1,11 +1,45 @@
 package com.echobody.repository;
 
+import com.echobody.dto.WorkoutSummary;
 import com.echobody.model.Workout;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface WorkoutRepository extends MongoRepository<Workout, String> {
+
+    // Fields of WorkoutSummary; list reads fetch only these
+    String SUMMARY_FIELDS = "{ 'name': 1, 'muscleGroup': 1, 'sets': 1, 'reps': 1, 'weight': 1, "
+            + "'caloriesBurned': 1, 'date': 1 }";
+
     List<Workout> findByUserId(String userId);
 
-    List<Workout> findByUserIdOrderByDateDesc(String userId);
+    @Query(value = "{ 'userId': ?0 }", fields = SUMMARY_FIELDS, sort = "{ 'date': -1 }")
+    List<WorkoutSummary> findByUserIdOrderByDateDesc(String userId);
+
+    // Keyset pages over (userId, date, _id); from/to bound the window, the cursor splits ties on _id
+    @Query(value = "{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 } }", fields = SUMMARY_FIELDS)
+    Slice<WorkoutSummary> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query(fields = SUMMARY_FIELDS, value = "{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 }, "
+            + "$or: [ { 'date': { $lt: ?3 } }, { 'date': ?3, '_id': { $lt: ?4 } } ] }")
+    Slice<WorkoutSummary> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    @Query(fields = SUMMARY_FIELDS, value = "{ 'userId': ?0, 'date': { $gte: ?1, $lt: ?2 }, "
+            + "$or: [ { 'date': { $gt: ?3 } }, { 'date': ?3, '_id': { $gt: ?4 } } ] }")
+    Slice<WorkoutSummary> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    // Cursor-backed; callers must close the stream
+    Stream<Workout> streamByUserIdOrderByDateAsc(String userId);
+
+    // Removes and returns the user's workout with this id; empty when the user has none
+    Optional<Workout> deleteByIdAndUserId(String id, String userId);
 }
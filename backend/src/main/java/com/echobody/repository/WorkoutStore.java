@@ -0,0 +1,72 @@
+package com.echobody.repository;
+
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where workouts live. The document layout keeps one document per workout; the bucket
+ * layout keeps one document per user per week or month. Selected with
+ * {@code app.workouts.storage}.
+ */
+public interface WorkoutStore {
+
+    /**
+     * The collection that {@link #over} pipelines run against.
+     */
+    String collection();
+
+    /**
+     * Adapts a pipeline written against one-document-per-workout so it runs on this
+     * layout. userId (null for every user) and from/to (inclusive days, either may be
+     * null) only narrow what is read.
+     */
+    Aggregation over(String userId, LocalDate from, LocalDate to, Aggregation pipeline);
+
+    /**
+     * The user's workouts in [from, to), newest first.
+     */
+    Aggregation window(String userId, LocalDateTime from, LocalDateTime to);
+
+    // List reads return summaries (WorkoutRepository.SUMMARY_FIELDS); newest first
+    List<WorkoutSummary> findByUser(String userId);
+
+    // Keyset pages with the same contract as the WorkoutRepository queries
+    Slice<WorkoutSummary> findPage(String userId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    Slice<WorkoutSummary> findPageBefore(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    Slice<WorkoutSummary> findPageAfter(String userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime cursorDate, Object cursorId, Pageable pageable);
+
+    Optional<Workout> findById(String id);
+
+    // Oldest first, cursor-backed; callers must close the stream
+    Stream<Workout> streamByUser(String userId);
+
+    Workout insert(Workout workout);
+
+    /**
+     * Inserts workouts that already carry ids. Returns error messages keyed by position
+     * in {@code workouts}.
+     */
+    Map<Integer, String> insertAll(List<Workout> workouts);
+
+    Workout update(Workout workout);
+
+    /**
+     * Removes the user's workout with this id and returns it; empty when the user has no
+     * such workout. Of concurrent deletes of one workout, only one gets it back.
+     */
+    Optional<Workout> delete(String id, String userId);
+}
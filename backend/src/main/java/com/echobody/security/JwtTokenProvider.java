@@ -1,26 +1,92 @@
 package com.echobody.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
+    // Rejected tokens are routine client errors; debug keeps bad tokens from flooding the log
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
     // ✅ Fixed, secure 512-bit key (won't regenerate on restart)
     @org.springframework.beans.factory.annotation.Value("${app.jwt.secret}")
     private String jwtSecretString;
 
+    // Upper bound on remembered tokens; each entry lives until its token expires
+    @org.springframework.beans.factory.annotation.Value("${app.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
     private SecretKey jwtSecret;
 
+    // Thread-safe, so one parser serves every request
+    private JwtParser jwtParser;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @org.springframework.beans.factory.annotation.Autowired
+    private MeterRegistry meterRegistry;
+
+    // jwt.verify by outcome: cached, verified or rejected
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+
     @jakarta.annotation.PostConstruct
     public void init() {
         this.jwtSecret = Keys.hmacShaKeyFor(jwtSecretString.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(jwtSecret)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long remainingMillis = token.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+                        return Math.max(0, remainingMillis) * 1_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.cachedTimer = verifyTimer("cached");
+        this.verifiedTimer = verifyTimer("verified");
+        this.rejectedTimer = verifyTimer("rejected");
+    }
+
+    private Timer verifyTimer(String outcome) {
+        return Timer.builder("jwt.verify").tag("outcome", outcome).register(meterRegistry);
     }
 
     // Token expiry: 24 hours
@@ -28,7 +94,7 @@ public class JwtTokenProvider {
 
     // 🔹 Generate JWT token after successful authentication
     public String generateToken(Authentication authentication) {
-        User userPrincipal = (User) authentication.getPrincipal();
+        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
 
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
@@ -41,33 +107,51 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    // 🔹 Extract username/email from the JWT token
-    public String getUserIdFromJWT(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    // 🔹 Verify the token once and return its claims; repeat calls with the same token hit the cache
+    public Optional<VerifiedToken> verify(String authToken) {
+        long start = System.nanoTime();
+        String key = digest(authToken);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
+
+        Optional<VerifiedToken> token = parse(authToken, key);
+        (token.isPresent() ? verifiedTimer : rejectedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
     }
 
-    // 🔹 Validate the token
-    public boolean validateToken(String authToken) {
+    private Optional<VerifiedToken> parse(String authToken, String key) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(jwtSecret)
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            if (claims.getExpiration() == null) {
+                // Never issued by generateToken; accept it but don't remember it
+                return Optional.of(new VerifiedToken(claims.getSubject(), Instant.MAX));
+            }
+            VerifiedToken token = new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
+            verifiedTokens.put(key, token);
+            return Optional.of(token);
         } catch (SecurityException | MalformedJwtException ex) {
-            System.out.println("Invalid JWT signature or malformed token");
+            log.debug("Invalid JWT signature or malformed token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
-            System.out.println("Expired JWT token");
+            log.debug("Expired JWT token");
         } catch (UnsupportedJwtException ex) {
-            System.out.println("Unsupported JWT token");
+            log.debug("Unsupported JWT token: {}", ex.getMessage());
         } catch (IllegalArgumentException ex) {
-            System.out.println("JWT claims string is empty");
+            log.debug("JWT claims string is empty");
+        } catch (JwtException ex) {
+            log.debug("Invalid JWT token: {}", ex.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
         }
-        return false;
     }
 }
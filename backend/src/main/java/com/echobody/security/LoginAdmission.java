@@ -0,0 +1,69 @@
+package com.echobody.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password checks on a small dedicated pool with a bounded queue, so a burst of
+ * logins cannot take every core from the rest of the API. Work beyond the queue is
+ * rejected immediately and the caller answers 429.
+ */
+@Component
+public class LoginAdmission {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    public LoginAdmission(MeterRegistry meterRegistry,
+            @Value("${app.security.login.threads:0}") int threads,
+            @Value("${app.security.login.queue-depth:64}") int queueDepth,
+            @Value("${app.security.login.retry-after:1s}") Duration retryAfter) {
+        // Default: half the cores, leaving the rest for normal traffic
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), task -> {
+                    Thread thread = new Thread(task, "login-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+        this.rejected = Counter.builder("auth.login.rejected").register(meterRegistry);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "login");
+    }
+
+    /**
+     * @throws RejectedExecutionException when the pool and its queue are full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw ex;
+        }
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,199 @@
+package com.echobody.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per caller and tier, checked right after the JWT filter. Login and
+ * registration are limited per client address; everything else, /api/auth/me included,
+ * per authenticated user (per address while unauthenticated). Analytics endpoints that
+ * aggregate a user's history get a smaller budget than plain reads and writes. Over
+ * budget, the request is answered 429 with Retry-After before it reaches a controller.
+ * A revalidation answered 304 by the ETag check costs an API token instead of its
+ * tier's, since it never runs the aggregation.
+ * <p>
+ * A bucket is one AtomicLong updated by compare-and-set, so callers never block each
+ * other. Buckets sit in a size-bounded map that drops them after they have been idle for
+ * longer than a full refill, when they would have been full again anyway. Behind a proxy
+ * the client address needs {@code server.forward-headers-strategy} set.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public enum Tier {
+        AUTH, ANALYTICS, API
+    }
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+    private static final List<String> AUTH = List.of("/api/auth/login", "/api/auth/register");
+    private static final List<String> ANALYTICS = List.of("/api/progress/**", "/api/reactive/progress/**",
+            "/api/export/**", "/api/mood/insights", "/api/meals/macros");
+
+    private final boolean enabled;
+    private final Map<Tier, Limit> limits = new EnumMap<>(Tier.class);
+    private final Map<Tier, Counter> rejected = new EnumMap<>(Tier.class);
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoTime;
+
+    @Autowired
+    public RateLimitFilter(MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.auth:10/1m}") String auth,
+            @Value("${app.rate-limit.analytics:30/1m}") String analytics,
+            @Value("${app.rate-limit.api:300/1m}") String api,
+            @Value("${app.rate-limit.max-keys:1000000}") long maxKeys) {
+        this(meterRegistry, enabled, Map.of(Tier.AUTH, Limit.parse(auth), Tier.ANALYTICS, Limit.parse(analytics),
+                Tier.API, Limit.parse(api)), maxKeys, System::nanoTime);
+    }
+
+    RateLimitFilter(MeterRegistry meterRegistry, boolean enabled, Map<Tier, Limit> limits, long maxKeys,
+            LongSupplier nanoTime) {
+        this.enabled = enabled;
+        this.limits.putAll(limits);
+        this.nanoTime = nanoTime;
+        long refill = limits.values().stream().mapToLong(Limit::refillNanos).max().orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(refill, TimeUnit.NANOSECONDS)
+                .build();
+        for (Tier tier : Tier.values()) {
+            rejected.put(tier, Counter.builder("http.rate_limited")
+                    .description("Requests answered 429 by the rate limiter")
+                    .tag("tier", tier.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Tier tier = tierOf(request.getRequestURI());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String caller = tier != Tier.AUTH && authentication != null
+                && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? "user:" + principal.getUsername()
+                : "ip:" + request.getRemoteAddr();
+
+        long wait = take(tier, caller);
+        if (wait > 0) {
+            rejected.get(tier).increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            // Whole seconds, rounded up so a retry at that time succeeds
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L))));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"message\": \"Too many requests, please retry later\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+        if (tier != Tier.API && response.getStatus() == HttpStatus.NOT_MODIFIED.value()) {
+            refund(tier, caller);
+            // Already answered, so only spends the budget if there is any left
+            take(Tier.API, caller);
+        }
+    }
+
+    static Tier tierOf(String path) {
+        if (AUTH.contains(path)) {
+            return Tier.AUTH;
+        }
+        for (String pattern : ANALYTICS) {
+            if (PATHS.match(pattern, path)) {
+                return Tier.ANALYTICS;
+            }
+        }
+        return Tier.API;
+    }
+
+    /**
+     * Takes a token, or returns how long until one is available. The bucket holds the
+     * time at which it will be full again (GCRA); a request fits while that lies at most
+     * capacity - 1 intervals ahead, and moves it one interval further.
+     */
+    long take(Tier tier, String caller) {
+        Limit limit = limits.get(tier);
+        AtomicLong full = buckets.get(key(tier, caller), key -> new AtomicLong(Long.MIN_VALUE));
+        long tolerance = limit.intervalNanos() * (limit.capacity() - 1);
+        while (true) {
+            long now = nanoTime.getAsLong();
+            long current = full.get();
+            long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long ahead = start - now;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            if (full.compareAndSet(current, start + limit.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    // Gives back a token taken by take(), as if the request had not been made
+    void refund(Tier tier, String caller) {
+        AtomicLong full = buckets.getIfPresent(key(tier, caller));
+        if (full != null) {
+            full.addAndGet(-limits.get(tier).intervalNanos());
+        }
+    }
+
+    private static String key(Tier tier, String caller) {
+        return tier.name() + "|" + caller;
+    }
+
+    /**
+     * capacity requests per period, refilled evenly; written as e.g. "30/1m".
+     */
+    record Limit(long capacity, Duration period) {
+
+        static Limit parse(String value) {
+            String[] parts = value.split("/", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected <capacity>/<period>, e.g. 30/1m: " + value);
+            }
+            Limit limit = new Limit(Long.parseLong(parts[0].trim()), DurationStyle.detectAndParse(parts[1].trim()));
+            if (limit.capacity() < 1 || limit.period().isNegative() || limit.period().isZero()) {
+                throw new IllegalArgumentException("Rate limit must allow at least one request per period: " + value);
+            }
+            return limit;
+        }
+
+        long intervalNanos() {
+            return Math.max(1, period.toNanos() / capacity);
+        }
+
+        long refillNanos() {
+            return intervalNanos() * capacity;
+        }
+    }
+}
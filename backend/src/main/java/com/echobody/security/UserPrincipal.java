@@ -0,0 +1,68 @@
+package com.echobody.security;
+
+import com.echobody.model.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The authenticated user as seen by controllers through {@code @AuthenticationPrincipal}.
+ * The username is the email, which is also the owner key stored on workouts, meals
+ * and mood entries. Profile fields come from the same lookup that authenticated the
+ * request, so handlers can answer from the principal without reading the user again.
+ */
+@Getter
+public class UserPrincipal implements UserDetails {
+
+    private final String id;
+    private final String email;
+    private final String password;
+    private final String name;
+    private final int age;
+    private final double heightCm;
+    private final double weightKg;
+    private final String goal;
+    private final String gender;
+    private final String timezone;
+
+    public UserPrincipal(String email, String password) {
+        this(null, email, password, null, 0, 0, 0, null, null, null);
+    }
+
+    private UserPrincipal(String id, String email, String password, String name, int age, double heightCm,
+            double weightKg, String goal, String gender, String timezone) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.name = name;
+        this.age = age;
+        this.heightCm = heightCm;
+        this.weightKg = weightKg;
+        this.goal = goal;
+        this.gender = gender;
+        this.timezone = timezone;
+    }
+
+    public static UserPrincipal create(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getName(), user.getAge(),
+                user.getHeight_cm(), user.getWeight_kg(), user.getGoal(), user.getGender(), user.getTimezone());
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+}
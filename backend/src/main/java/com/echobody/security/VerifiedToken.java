@@ -0,0 +1,20 @@
+package com.echobody.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry have been checked.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+    private final String subject;
+    private final Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
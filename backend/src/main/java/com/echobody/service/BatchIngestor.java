@@ -0,0 +1,99 @@
+package com.echobody.service;
+
+import com.echobody.dto.BatchResult;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads a batch upload (a JSON array or newline-delimited JSON) item by item and hands
+ * it to a writer in fixed-size chunks, so a large upload never sits in memory at once
+ * and each chunk costs one bulk write.
+ */
+@Component
+public class BatchIngestor {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.ingest.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.ingest.max-items:10000}")
+    private int maxItems;
+
+    /**
+     * @param writer persists one chunk and returns a result per item, indexed within the chunk
+     */
+    public <T> BatchResult ingest(InputStream body, Class<T> type, Function<List<T>, List<BatchResult.Item>> writer)
+            throws IOException {
+        List<BatchResult.Item> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        int chunkStart = 0;
+        int index = 0;
+
+        // readValues walks both the elements of a root array and whitespace-separated values
+        try (MappingIterator<T> values = objectMapper.readerFor(type).readValues(body)) {
+            while (true) {
+                if (index >= maxItems) {
+                    if (values.hasNextValue()) {
+                        results.add(BatchResult.Item.failed(index, "Batch limit of " + maxItems + " items exceeded"));
+                    }
+                    break;
+                }
+                try {
+                    if (!values.hasNextValue()) {
+                        break;
+                    }
+                    chunk.add(values.nextValue());
+                } catch (JsonParseException ex) {
+                    // The stream itself is broken; nothing after this point can be read
+                    results.add(BatchResult.Item.failed(index, "Malformed JSON: " + ex.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException ex) {
+                    // A well-formed item of the wrong shape; the iterator skips past it
+                    flush(chunk, chunkStart, writer, results);
+                    results.add(BatchResult.Item.failed(index, "Invalid item: " + ex.getOriginalMessage()));
+                    chunkStart = ++index;
+                    continue;
+                }
+                index++;
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, chunkStart, writer, results);
+                    chunkStart = index;
+                }
+            }
+        }
+        flush(chunk, chunkStart, writer, results);
+
+        results.sort(Comparator.comparingInt(BatchResult.Item::getIndex));
+        BatchResult result = new BatchResult();
+        result.setItems(results);
+        result.setFailed((int) results.stream().filter(item -> item.getError() != null).count());
+        result.setAccepted(results.size() - result.getFailed());
+        return result;
+    }
+
+    private static <T> void flush(List<T> chunk, int chunkStart, Function<List<T>, List<BatchResult.Item>> writer,
+            List<BatchResult.Item> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (BatchResult.Item item : writer.apply(new ArrayList<>(chunk))) {
+            item.setIndex(chunkStart + item.getIndex());
+            results.add(item);
+        }
+        chunk.clear();
+    }
+}
@@ -2,26 +2,76 @@ package com.echobody.service;
 
 import com.echobody.model.User;
 import com.echobody.repository.UserRepository;
+import com.echobody.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.time.Duration;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    // Saves the findByEmail round-trip the JWT filter would otherwise make on every request.
+    // Entries carry the password hash, so anything that changes the user must call evict().
+    private final Cache<String, UserDetails> userCache;
+
+    public CustomUserDetailsService(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.user-cache.ttl:5m}") Duration ttl) {
         this.userRepository = userRepository;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, "userDetails");
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        // Unknown emails throw out of the loader and are not cached
+        return userCache.get(email, this::loadFromDatabase);
+    }
+
+    public void evict(String email) {
+        userCache.invalidate(email);
+    }
+
+    // Profile changes made on another node arrive here through the invalidation bus
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (event.getType() == UserDataChangedEvent.DataType.PROFILE) {
+            evict(event.getUserId());
+        }
+    }
+
+    // Called after a successful login whose stored hash is outdated (see SecurityConfig.passwordEncoder)
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return userRepository.findByEmail(user.getUsername())
+                .map(stored -> {
+                    stored.setPassword(newPassword);
+                    UserPrincipal updated = UserPrincipal.create(userRepository.save(stored));
+                    evict(stored.getEmail());
+                    return (UserDetails) updated;
+                })
+                .orElse(user);
+    }
+
+    private UserDetails loadFromDatabase(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-        return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), new ArrayList<>());
+        return UserPrincipal.create(user);
     }
 }
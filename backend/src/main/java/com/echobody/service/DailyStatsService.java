@@ -0,0 +1,246 @@
+package com.echobody.service;
+
+import com.echobody.dto.TrendPointDTO;
+import com.echobody.model.UserDailyStats;
+import com.echobody.model.Workout;
+import com.echobody.repository.WorkoutStore;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Maintains user_daily_stats. Each apply method recomputes one source's fields for one
+ * (user, day) from that source and overwrites them, so applying the same change twice,
+ * or out of order, leaves the same row.
+ */
+@Service
+public class DailyStatsService {
+
+    static final String COLLECTION = "user_daily_stats";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    public void applyWorkouts(String userId, LocalDate day) {
+        Document sums = first(workoutStore.over(userId, day, day, newAggregation(
+                match(ProgressService.workoutsOf(userId, day, day)),
+                group().count().as("count")
+                        .sum("caloriesBurned").as("calories")
+                        .sum(workoutPoints()).as("points"))), workoutStore.collection());
+        mongoTemplate.upsert(byDay(userId, day), workoutFields(userId, day,
+                ProgressService.number(sums, "count"), ProgressService.number(sums, "calories"),
+                ProgressService.number(sums, "points")), COLLECTION);
+    }
+
+    /**
+     * Replaces the workout fields of every day in [start, end) from one bucket's entries,
+     * which are all of the user's workouts for those days.
+     */
+    public void applyWorkoutBucket(String userId, LocalDate start, LocalDate end, List<Workout> entries) {
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            days.put(day, new long[3]);
+        }
+        for (Workout workout : entries) {
+            long[] sums = days.get(workout.getDate().toLocalDate());
+            if (sums != null) {
+                sums[0]++;
+                sums[1] += workout.getCaloriesBurned();
+                sums[2] += 10 + workout.getCaloriesBurned() / 50;
+            }
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        days.forEach((day, sums) -> bulk.upsert(byDay(userId, day),
+                workoutFields(userId, day, sums[0], sums[1], sums[2])));
+        bulk.execute();
+    }
+
+    public void applyMeals(String userId, LocalDate day) {
+        Document sums = first(newAggregation(
+                match(Criteria.where("userId").is(userId)
+                        .and("dateTime").gte(day.atStartOfDay()).lt(day.plusDays(1).atStartOfDay())),
+                group().count().as("count")
+                        .sum("calories").as("calories")
+                        .sum("protein").as("protein")
+                        .sum("carbs").as("carbs")
+                        .sum("fat").as("fat")), "meals");
+        mongoTemplate.upsert(byDay(userId, day), onInsert(userId, day)
+                .set("meals", ProgressService.number(sums, "count"))
+                .set("caloriesConsumed", ProgressService.number(sums, "calories"))
+                .set("protein", ProgressService.number(sums, "protein"))
+                .set("carbs", ProgressService.number(sums, "carbs"))
+                .set("fat", ProgressService.number(sums, "fat")), COLLECTION);
+    }
+
+    public void applyMood(String userId, LocalDate day) {
+        Document sums = first(newAggregation(
+                match(Criteria.where("userId").is(userId)
+                        .and("date").gte(day.atStartOfDay()).lt(day.plusDays(1).atStartOfDay())),
+                group().count().as("count").sum("energy").as("energy")), "mood_entries");
+        long entries = ProgressService.number(sums, "count");
+        long energy = ProgressService.number(sums, "energy");
+        mongoTemplate.upsert(byDay(userId, day), onInsert(userId, day)
+                .set("moodEntries", entries)
+                .set("energyTotal", energy)
+                .set("averageEnergy", entries > 0 ? (double) energy / entries : null), COLLECTION);
+    }
+
+    /**
+     * Same points as ProgressService.getTrend, read from one row per active day.
+     */
+    public List<TrendPointDTO> getTrend(String userId, LocalDate from, LocalDate to) {
+        return mongoTemplate.find(trendQuery(userId, from, to), UserDailyStats.class).stream()
+                .map(DailyStatsService::trendPointOf)
+                .collect(Collectors.toList());
+    }
+
+    // Shared with ReactiveReadService
+    static Query trendQuery(String userId, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (from != null || to != null) {
+            Criteria day = criteria.and("day");
+            if (from != null) {
+                day.gte(from.toString());
+            }
+            if (to != null) {
+                day.lte(to.toString());
+            }
+        }
+        criteria.and("workouts").gt(0);
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "day"));
+        query.fields().include("day", "workoutPoints");
+        return query;
+    }
+
+    static TrendPointDTO trendPointOf(UserDailyStats row) {
+        return new TrendPointDTO(row.getDay(), (int) Math.min(100, row.getWorkoutPoints()));
+    }
+
+    /**
+     * Rebuilds the workout fields of every row from the source, in place: a $merge stamps
+     * each row it reaches with a fresh build id, then the fields are zeroed on rows without
+     * it. Nothing is removed, so reads and the other sources' watchers keep working on the
+     * live collection meanwhile. Used on first start and when a stream can no longer resume.
+     */
+    public void rebuildWorkouts() {
+        ObjectId build = new ObjectId();
+        mongoTemplate.aggregate(workoutStore.over(null, null, null, newAggregation(
+                match(Criteria.where("date").ne(null)),
+                project("userId", "caloriesBurned")
+                        .and(ProgressService.dayOf("date")).as("day")
+                        .and(workoutPoints()).as("points"),
+                group("userId", "day").count().as("workouts")
+                        .sum("caloriesBurned").as("caloriesBurned")
+                        .sum("points").as("workoutPoints"),
+                rowOf("workoutsBuild", build, "workouts", "caloriesBurned", "workoutPoints"),
+                mergeInto())), workoutStore.collection(), Document.class);
+        resetUnbuilt("workoutsBuild", build, new Update()
+                .set("workouts", 0L).set("caloriesBurned", 0L).set("workoutPoints", 0L));
+    }
+
+    // As rebuildWorkouts, for the meal fields
+    public void rebuildMeals() {
+        ObjectId build = new ObjectId();
+        mongoTemplate.aggregate(newAggregation(
+                match(Criteria.where("dateTime").ne(null)),
+                project("userId", "calories", "protein", "carbs", "fat")
+                        .and(ProgressService.dayOf("dateTime")).as("day"),
+                group("userId", "day").count().as("meals")
+                        .sum("calories").as("caloriesConsumed")
+                        .sum("protein").as("protein")
+                        .sum("carbs").as("carbs")
+                        .sum("fat").as("fat"),
+                rowOf("mealsBuild", build, "meals", "caloriesConsumed", "protein", "carbs", "fat"),
+                mergeInto()), "meals", Document.class);
+        resetUnbuilt("mealsBuild", build, new Update().set("meals", 0L).set("caloriesConsumed", 0L)
+                .set("protein", 0L).set("carbs", 0L).set("fat", 0L));
+    }
+
+    // As rebuildWorkouts, for the mood fields
+    public void rebuildMood() {
+        ObjectId build = new ObjectId();
+        mongoTemplate.aggregate(newAggregation(
+                match(Criteria.where("date").ne(null)),
+                project("userId", "energy").and(ProgressService.dayOf("date")).as("day"),
+                group("userId", "day").count().as("moodEntries")
+                        .sum("energy").as("energyTotal")
+                        .avg("energy").as("averageEnergy"),
+                rowOf("moodBuild", build, "moodEntries", "energyTotal", "averageEnergy"),
+                mergeInto()), "mood_entries", Document.class);
+        resetUnbuilt("moodBuild", build, new Update()
+                .set("moodEntries", 0L).set("energyTotal", 0L).set("averageEnergy", null));
+    }
+
+    private static AggregationExpression workoutPoints() {
+        return ArithmeticOperators.Add.valueOf(
+                ArithmeticOperators.Trunc.truncValueOf(
+                        ArithmeticOperators.Divide.valueOf("caloriesBurned").divideBy(50)))
+                .add(10);
+    }
+
+    // Shapes a (userId, day) group into a row; the sources' fields are merged by _id
+    private static AggregationOperation rowOf(String buildField, ObjectId build, String... fields) {
+        Document row = new Document("_id", new Document("$concat", List.of("$_id.userId", "|", "$_id.day")))
+                .append("userId", "$_id.userId")
+                .append("day", "$_id.day")
+                .append(buildField, new Document("$literal", build));
+        for (String field : fields) {
+            row.append(field, "$" + field);
+        }
+        return stage(new Document("$project", row));
+    }
+
+    private static AggregationOperation mergeInto() {
+        return merge().intoCollection(COLLECTION)
+                .on("_id")
+                .whenMatched(MergeOperation.WhenDocumentsMatch.mergeDocuments())
+                .whenNotMatched(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+    }
+
+    private void resetUnbuilt(String buildField, ObjectId build, Update reset) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where(buildField).ne(build)), reset, COLLECTION);
+    }
+
+    private Update workoutFields(String userId, LocalDate day, long workouts, long calories, long points) {
+        return onInsert(userId, day)
+                .set("workouts", workouts)
+                .set("caloriesBurned", calories)
+                .set("workoutPoints", points);
+    }
+
+    private static Update onInsert(String userId, LocalDate day) {
+        return new Update().setOnInsert("userId", userId).setOnInsert("day", day.toString());
+    }
+
+    private Document first(Aggregation aggregation, String collection) {
+        return mongoTemplate.aggregate(aggregation, collection, Document.class).getUniqueMappedResult();
+    }
+
+    private static Query byDay(String userId, LocalDate day) {
+        return Query.query(Criteria.where("_id").is(userId + "|" + day));
+    }
+}
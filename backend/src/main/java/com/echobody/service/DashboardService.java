@@ -0,0 +1,93 @@
+package com.echobody.service;
+
+import com.echobody.dto.DashboardSummary;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.UserRollup;
+import com.echobody.repository.MoodRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Service
+public class DashboardService {
+
+    // Shown when there is no mood entry yet or it could not be read in time
+    private static final String DEFAULT_ENERGY_LEVEL = "High";
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private MoodRepository moodRepository;
+
+    @Autowired
+    private StreakService streakService;
+
+    @Autowired
+    private FanOut fanOut;
+
+    @Value("${app.fanout.timeout:2s}")
+    private Duration timeout;
+
+    public DashboardSummary getSummary(String userId) {
+        FanOut.Call<UserRollup> rollupCall;
+        FanOut.Call<Optional<MoodEntry>> moodCall;
+        FanOut.Call<Optional<Integer>> streakCall;
+        try (FanOut.Scope scope = fanOut.open()) {
+            // The rollup is required; the energy level and streak degrade to defaults. Only
+            // stored documents are read here, so a timeout never cancels a first-time rebuild
+            rollupCall = scope.fork(() -> rollupService.findRollup(userId), timeout);
+            moodCall = scope.fork(() -> moodRepository.findFirstByUserIdOrderByDateDesc(userId), timeout,
+                    Optional.empty());
+            streakCall = scope.fork(() -> Optional.ofNullable(streakService.findStreak(userId))
+                    .map(StreakService::current), timeout, Optional.of(0));
+            scope.join();
+        }
+
+        UserRollup rollup = rollupCall.get();
+        if (rollup == null) {
+            rollup = rollupService.rebuild(userId);
+        }
+        int currentStreak = streakCall.get().orElseGet(() -> streakService.currentStreak(userId));
+        return summarize(rollup, moodCall.get(), currentStreak);
+    }
+
+    // Shared with the reactive read path
+    static DashboardSummary summarize(UserRollup rollup, Optional<MoodEntry> latestMood, int currentStreak) {
+        DashboardSummary summary = new DashboardSummary();
+        String today = LocalDate.now().toString();
+        String windowStart = RollupService.windowStart().toString();
+
+        long workoutsThisWeekCount = rollup.getDays().entrySet().stream()
+                .filter(day -> day.getKey().compareTo(windowStart) >= 0)
+                .mapToLong(day -> day.getValue().getWorkouts())
+                .sum();
+        summary.setWorkoutsThisWeek(workoutsThisWeekCount);
+
+        summary.setTotalWorkouts(rollup.getTotalWorkouts());
+        summary.setTotalCaloriesBurned((int) rollup.getTotalCaloriesBurned());
+
+        UserRollup.DayBucket todayBucket = rollup.getDays().get(today);
+        summary.setCaloriesToday(todayBucket != null ? (int) todayBucket.getCaloriesConsumed() : 0);
+
+        summary.setTotalMeals(rollup.getTotalMeals());
+        summary.setTotalCaloriesConsumed((int) rollup.getTotalCaloriesConsumed());
+
+        summary.setStreakDays(currentStreak);
+        summary.setEnergyLevel(latestMood.map(DashboardService::energyLevel).orElse(DEFAULT_ENERGY_LEVEL));
+
+        return summary;
+    }
+
+    // Mood energy is logged on a 1-10 scale
+    static String energyLevel(MoodEntry entry) {
+        if (entry.getEnergy() >= 7) {
+            return "High";
+        }
+        return entry.getEnergy() >= 4 ? "Medium" : "Low";
+    }
+}
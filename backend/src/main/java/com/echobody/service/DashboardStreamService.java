@@ -0,0 +1,151 @@
+package com.echobody.service;
+
+import com.echobody.dto.DashboardSummary;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes dashboard summaries to open /api/dashboard/stream connections. A user's summary
+ * is recomputed once per burst of writes, however many connections they have open, and
+ * only on nodes where they have one. Each connection first gets the whole summary as a
+ * "summary" event, then "delta" events carrying just the fields that changed.
+ * <p>
+ * An idle connection holds no thread, only its place in one shared heartbeat. A slow
+ * client buffers at most one pending summary; newer ones replace it.
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreamService.class);
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {
+    };
+
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+    private final Flux<ServerSentEvent<Object>> heartbeat;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public DashboardStreamService(DashboardService dashboardService, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry, @Value("${app.dashboard.stream.heartbeat:20s}") Duration heartbeat) {
+        this.dashboardService = dashboardService;
+        this.objectMapper = objectMapper;
+        // A comment line keeps proxies from closing the connection and surfaces dead clients
+        this.heartbeat = Flux.interval(heartbeat)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.builder().comment("heartbeat").build())
+                .share();
+        Gauge.builder("dashboard.streams", connections, AtomicInteger::get)
+                .description("Open dashboard event streams")
+                .register(meterRegistry);
+    }
+
+    public Flux<ServerSentEvent<Object>> stream(String userId) {
+        return Flux.defer(() -> {
+            Channel channel = channels.compute(userId, (id, existing) -> {
+                Channel opened = existing != null ? existing : new Channel(id);
+                opened.subscribers++;
+                return opened;
+            });
+            connections.incrementAndGet();
+            channel.refresh();
+
+            AtomicReference<Map<String, Object>> sent = new AtomicReference<>();
+            Flux<ServerSentEvent<Object>> summaries = channel.summaries.asFlux()
+                    .onBackpressureLatest()
+                    .map(summary -> eventFor(summary, sent))
+                    .filter(event -> event.data() != null);
+            return Flux.merge(summaries, heartbeat)
+                    .doFinally(signal -> close(channel));
+        });
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        Channel channel = channels.get(event.getUserId());
+        if (channel != null) {
+            channel.refresh();
+        }
+    }
+
+    // The first event carries every field; later ones only what this connection has not seen
+    private ServerSentEvent<Object> eventFor(DashboardSummary summary, AtomicReference<Map<String, Object>> sent) {
+        Map<String, Object> fields = objectMapper.convertValue(summary, FIELDS);
+        Map<String, Object> previous = sent.getAndSet(fields);
+        if (previous == null) {
+            return ServerSentEvent.<Object>builder(fields).event("summary").build();
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        fields.forEach((field, value) -> {
+            if (!Objects.equals(previous.get(field), value)) {
+                delta.put(field, value);
+            }
+        });
+        return ServerSentEvent.<Object>builder(delta.isEmpty() ? null : delta).event("delta").build();
+    }
+
+    private void close(Channel channel) {
+        connections.decrementAndGet();
+        channels.computeIfPresent(channel.userId, (id, existing) -> --existing.subscribers > 0 ? existing : null);
+    }
+
+    private final class Channel {
+
+        private final String userId;
+        // Holds the latest summary for connections that open while it is current
+        private final Sinks.Many<DashboardSummary> summaries = Sinks.many().replay().latest();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final AtomicBoolean running = new AtomicBoolean();
+        // Guarded by the channels map
+        private int subscribers;
+
+        private Channel(String userId) {
+            this.userId = userId;
+        }
+
+        // Writes arriving while a summary is being computed fold into one more computation
+        void refresh() {
+            dirty.set(true);
+            if (running.compareAndSet(false, true)) {
+                Schedulers.boundedElastic().schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (dirty.getAndSet(false)) {
+                    try {
+                        summaries.tryEmitNext(dashboardService.getSummary(userId));
+                    } catch (RuntimeException ex) {
+                        log.warn("Could not compute the dashboard summary for {}", userId, ex);
+                    }
+                }
+            } finally {
+                running.set(false);
+                if (dirty.get()) {
+                    refresh();
+                }
+            }
+        }
+    }
+}
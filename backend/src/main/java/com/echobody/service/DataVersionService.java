@@ -0,0 +1,49 @@
+package com.echobody.service;
+
+import com.echobody.model.DataVersion;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DataVersionService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Runs after the write, so a reader never sees the new version with the old data.
+    // Versions are shared, so the node that made the write bumps it once
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (!event.isRemote()) {
+            bump(event.getUserId());
+        }
+    }
+
+    // Also called when data derived asynchronously (daily stats) catches up
+    public void bump(String userId) {
+        mongoTemplate.upsert(byId(userId),
+                new Update().inc("version", 1).setOnInsert("epoch", new ObjectId().toHexString()),
+                DataVersion.class);
+    }
+
+    public DataVersion current(String userId) {
+        DataVersion version = mongoTemplate.findById(userId, DataVersion.class);
+        if (version != null) {
+            return version;
+        }
+        return mongoTemplate.findAndModify(byId(userId),
+                new Update().inc("version", 0).setOnInsert("epoch", new ObjectId().toHexString()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), DataVersion.class);
+    }
+
+    private static Query byId(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+}
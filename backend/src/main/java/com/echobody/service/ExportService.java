@@ -0,0 +1,183 @@
+package com.echobody.service;
+
+import com.echobody.model.Meal;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.Workout;
+import com.echobody.repository.MealRepository;
+import com.echobody.repository.MoodRepository;
+import com.echobody.repository.WorkoutStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a user's full history straight from Mongo cursors to the response. Rows are
+ * written one at a time as they arrive, so memory use does not grow with history size.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public enum Section {
+        WORKOUTS, MEALS, MOOD
+    }
+
+    private static final String[] CSV_COLUMNS = {
+            "type", "id", "date", "name", "muscleGroup", "sets", "reps", "weight", "caloriesBurned",
+            "title", "shortDesc", "calories", "protein", "carbs", "fat", "mealType", "mood", "energy", "notes"
+    };
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    @Autowired
+    private MoodRepository moodRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public void export(String userId, Format format, Set<Section> sections, boolean gzip, OutputStream out)
+            throws IOException {
+        write(out, format, gzip,
+                sections.contains(Section.WORKOUTS) ? () -> workoutStore.streamByUser(userId) : Stream::empty,
+                sections.contains(Section.MEALS) ? () -> mealRepository.streamByUserIdOrderByDateTimeAsc(userId) : Stream::empty,
+                sections.contains(Section.MOOD) ? () -> moodRepository.streamByUserIdOrderByDateAsc(userId) : Stream::empty);
+    }
+
+    /**
+     * Each supplier is opened only when its section is reached and closed before the next
+     * one starts, so at most one cursor is open at a time.
+     */
+    public void write(OutputStream out, Format format, boolean gzip, Supplier<Stream<Workout>> workouts,
+            Supplier<Stream<Meal>> meals, Supplier<Stream<MoodEntry>> moods) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+        OutputStream buffered = new BufferedOutputStream(target, 64 * 1024);
+
+        if (format == Format.NDJSON) {
+            writeNdjson(buffered, workouts, meals, moods);
+        } else {
+            writeCsv(buffered, workouts, meals, moods);
+        }
+
+        buffered.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+    }
+
+    private void writeNdjson(OutputStream out, Supplier<Stream<Workout>> workouts, Supplier<Stream<Meal>> meals,
+            Supplier<Stream<MoodEntry>> moods) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        // The mapper flushes after every value by default, which would defeat the buffer
+        ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            writeNdjsonSection(generator, rowWriter, "workout", workouts);
+            writeNdjsonSection(generator, rowWriter, "meal", meals);
+            writeNdjsonSection(generator, rowWriter, "mood", moods);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private <T> void writeNdjsonSection(JsonGenerator generator, ObjectWriter rowWriter, String type,
+            Supplier<Stream<T>> rows) throws IOException {
+        try (Stream<T> stream = rows.get()) {
+            stream.forEach(row -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeStringField("type", type);
+                    generator.writeFieldName("data");
+                    rowWriter.writeValue(generator, row);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(OutputStream out, Supplier<Stream<Workout>> workouts, Supplier<Stream<Meal>> meals,
+            Supplier<Stream<MoodEntry>> moods) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        try {
+            writeCsvRow(writer, (Object[]) CSV_COLUMNS);
+            try (Stream<Workout> stream = workouts.get()) {
+                stream.forEach(w -> writeCsvRow(writer, "workout", w.getId(), w.getDate(), w.getName(),
+                        w.getMuscleGroup(), w.getSets(), w.getReps(), w.getWeight(), w.getCaloriesBurned(),
+                        null, null, null, null, null, null, null, null, null, w.getNotes()));
+            }
+            try (Stream<Meal> stream = meals.get()) {
+                stream.forEach(m -> writeCsvRow(writer, "meal", m.getId(), m.getDateTime(), null,
+                        null, null, null, null, null,
+                        m.getTitle(), m.getShortDesc(), m.getCalories(), m.getProtein(), m.getCarbs(), m.getFat(),
+                        m.getType(), null, null, m.getNotes()));
+            }
+            try (Stream<MoodEntry> stream = moods.get()) {
+                stream.forEach(e -> writeCsvRow(writer, "mood", e.getId(), e.getDate(), null,
+                        null, null, null, null, null,
+                        null, null, null, null, null, null, null, e.getMood(), e.getEnergy(), e.getNotes()));
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] instanceof String text) {
+                    writer.write(csvEscape(neutralizeFormula(text)));
+                } else if (values[i] != null) {
+                    writer.write(csvEscape(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // User-entered text that a spreadsheet would run as a formula is kept as text
+    static String neutralizeFormula(String value) {
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
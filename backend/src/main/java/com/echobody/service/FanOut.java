@@ -0,0 +1,157 @@
+package com.echobody.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a request's independent calls concurrently. Calls forked in a {@link Scope} are
+ * joined together, each against its own timeout, and anything still running when the
+ * scope closes is cancelled, so no call outlives the request that started it. With an
+ * executor that runs tasks in the caller, calls run one after another and only their
+ * fallbacks apply.
+ */
+@Component
+public class FanOut {
+
+    private final Executor executor;
+
+    public FanOut(@Qualifier("fanOutExecutor") Executor executor) {
+        this.executor = executor;
+    }
+
+    public Scope open() {
+        return new Scope(executor);
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Executor executor;
+        private final List<Call<?>> calls = new ArrayList<>();
+        private final BlockingQueue<Call<?>> completed = new LinkedBlockingQueue<>();
+
+        Scope(Executor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * Starts a call. If it fails or exceeds its timeout, {@link Call#get()} returns
+         * the fallback; pass a null fallback to make the failure fail the whole join.
+         */
+        public <T> Call<T> fork(Callable<T> task, Duration timeout, T fallback) {
+            Call<T> call = new Call<>(task, System.nanoTime() + timeout.toNanos(), fallback, completed);
+            calls.add(call);
+            executor.execute(call);
+            return call;
+        }
+
+        public <T> Call<T> fork(Callable<T> task, Duration timeout) {
+            return fork(task, timeout, null);
+        }
+
+        /**
+         * Waits for every forked call, settling each as it completes or times out. The
+         * first failure of a call without a fallback cancels the rest and is thrown.
+         */
+        public void join() {
+            List<Call<?>> pending = new ArrayList<>(calls);
+            try {
+                while (!pending.isEmpty()) {
+                    long nextDeadline = pending.stream().mapToLong(call -> call.deadline).min().getAsLong();
+                    Call<?> done = completed.poll(Math.max(0, nextDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (done != null) {
+                        if (pending.remove(done)) {
+                            done.settle();
+                        }
+                        continue;
+                    }
+                    long now = System.nanoTime();
+                    for (Call<?> call : new ArrayList<>(pending)) {
+                        if (call.deadline <= now) {
+                            pending.remove(call);
+                            call.settle();
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new FanOutException(ex);
+            } catch (RuntimeException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        @Override
+        public void close() {
+            calls.forEach(call -> call.cancel(true));
+        }
+    }
+
+    public static final class Call<T> extends FutureTask<T> {
+
+        private final long deadline;
+        private final T fallback;
+        private final BlockingQueue<Call<?>> completed;
+        private T value;
+        private boolean settled;
+
+        private Call(Callable<T> task, long deadline, T fallback, BlockingQueue<Call<?>> completed) {
+            super(task);
+            this.deadline = deadline;
+            this.fallback = fallback;
+            this.completed = completed;
+        }
+
+        @Override
+        protected void done() {
+            completed.offer(this);
+        }
+
+        private void settle() {
+            try {
+                if (!isDone()) {
+                    cancel(true);
+                    throw new TimeoutException();
+                }
+                value = super.get();
+            } catch (TimeoutException | ExecutionException | CancellationException ex) {
+                if (fallback == null) {
+                    throw new FanOutException(ex instanceof ExecutionException ? ex.getCause() : ex);
+                }
+                value = fallback;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new FanOutException(ex);
+            }
+            settled = true;
+        }
+
+        @Override
+        public T get() {
+            if (!settled) {
+                throw new IllegalStateException("Call read before the scope was joined");
+            }
+            return value;
+        }
+    }
+
+    public static class FanOutException extends RuntimeException {
+        FanOutException(Throwable cause) {
+            super(cause instanceof TimeoutException ? "Call timed out" : cause.getMessage(), cause);
+        }
+    }
+}
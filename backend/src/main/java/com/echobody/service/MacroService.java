@@ -0,0 +1,287 @@
+package com.echobody.service;
+
+import com.echobody.dto.MacrosDTO;
+import com.echobody.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Macro totals per day, week or month, grouped by $dateTrunc in the user's zone so
+ * only one row per period leaves the database. Totals of periods that have ended are
+ * cached per user; a request then reads meals from the first period it is missing,
+ * which is usually just the current one. Logging, editing or deleting a meal drops the
+ * user's cached totals, since meals can be backdated.
+ */
+@Service
+public class MacroService {
+
+    static final int MAX_PERIODS = 366;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        LocalDate start(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+
+        // 30 days, 12 weeks or 12 months ending with the one holding `to`
+        LocalDate defaultFrom(LocalDate to) {
+            return switch (this) {
+                case DAY -> to.minusDays(29);
+                case WEEK -> to.minusWeeks(11);
+                case MONTH -> to.minusMonths(11);
+            };
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    // Totals of a period that has ended, one entry per (user, generation, zone, granularity,
+    // start). A meal write gives the user a new generation; older entries age out unread
+    private final Cache<PeriodKey, Totals> completed;
+    private final Cache<String, Long> generations;
+    private final AtomicLong nextGeneration = new AtomicLong();
+
+    public MacroService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${app.nutrition.macros-cache.max-size:10000}") long maxSize,
+            @Value("${app.nutrition.macros-cache.ttl:10m}") Duration ttl) {
+        this.mongoTemplate = mongoTemplate;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Losing a user's generation is harmless: the next read draws a fresh one
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "macroPeriods");
+    }
+
+    public MacrosDTO getMacros(User user, LocalDate from, LocalDate to, Granularity granularity) {
+        ZoneId zone = StreakService.zoneOf(user.getTimezone());
+        return getMacros(user, from, to, granularity, zone, LocalDate.now(zone));
+    }
+
+    MacrosDTO getMacros(User user, LocalDate from, LocalDate to, Granularity granularity, ZoneId zone,
+            LocalDate today) {
+        LocalDate last = granularity.start(to != null ? to : today);
+        LocalDate first = granularity.start(from != null ? from : granularity.defaultFrom(last));
+        if (first.isAfter(last)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from is after to");
+        }
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = first; !start.isAfter(last); start = granularity.next(start)) {
+            if (starts.size() == MAX_PERIODS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "At most " + MAX_PERIODS + " periods per request");
+            }
+            starts.add(start);
+        }
+
+        // A meal logged while this runs moves the user to a new generation, so totals
+        // stored under this one are never read
+        long generation = generations.get(user.getEmail(), id -> nextGeneration.incrementAndGet());
+        Map<LocalDate, Totals> totals = new HashMap<>();
+        LocalDate missing = null;
+        for (LocalDate start : starts) {
+            Totals hit = completed.getIfPresent(new PeriodKey(user.getEmail(), generation, zone, granularity, start));
+            if (hit == null) {
+                missing = start;
+                break;
+            }
+            totals.put(start, hit);
+        }
+        if (missing != null) {
+            Map<LocalDate, Totals> read = read(user.getEmail(), missing, granularity.next(last), granularity, zone);
+            for (LocalDate start : starts.subList(starts.indexOf(missing), starts.size())) {
+                Totals period = read.getOrDefault(start, Totals.NONE);
+                totals.put(start, period);
+                if (!granularity.next(start).isAfter(today)) {
+                    completed.put(new PeriodKey(user.getEmail(), generation, zone, granularity, start), period);
+                }
+            }
+        }
+
+        MacrosDTO macros = new MacrosDTO();
+        MacrosDTO.Macros daily = dailyTarget(user);
+        macros.setGranularity(granularity.name().toLowerCase(Locale.ROOT));
+        macros.setTimezone(zone.getId());
+        macros.setFrom(first.toString());
+        macros.setTo(granularity.next(last).minusDays(1).toString());
+        macros.setGoal(user.getGoal());
+        macros.setDailyTarget(daily);
+        for (LocalDate start : starts) {
+            macros.getPeriods().add(periodOf(start, granularity.next(start), today, totals.get(start), daily));
+        }
+        return macros;
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        if (event.getType() == UserDataChangedEvent.DataType.MEALS) {
+            generations.invalidate(event.getUserId());
+        }
+    }
+
+    private Map<LocalDate, Totals> read(String userId, LocalDate from, LocalDate until, Granularity granularity,
+            ZoneId zone) {
+        Map<LocalDate, Totals> periods = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(macrosAggregation(userId, from, until, granularity, zone),
+                "meals", Document.class)) {
+            LocalDate start = ((Date) row.get("_id")).toInstant().atZone(zone).toLocalDate();
+            periods.put(start, new Totals(ProgressService.number(row, "meals"),
+                    ProgressService.number(row, "calories"), ProgressService.number(row, "protein"),
+                    ProgressService.number(row, "carbs"), ProgressService.number(row, "fat")));
+        }
+        return periods;
+    }
+
+    static Aggregation macrosAggregation(String userId, LocalDate from, LocalDate until, Granularity granularity,
+            ZoneId zone) {
+        Document trunc = new Document("date", "$dateTime")
+                .append("unit", granularity.name().toLowerCase(Locale.ROOT))
+                .append("timezone", zone.getId());
+        if (granularity == Granularity.WEEK) {
+            trunc.append("startOfWeek", "monday");
+        }
+        return newAggregation(
+                match(Criteria.where("userId").is(userId).and("dateTime")
+                        .gte(storedTime(from, zone)).lt(storedTime(until, zone))),
+                stage(new Document("$group", new Document("_id", new Document("$dateTrunc", trunc))
+                        .append("meals", new Document("$sum", 1))
+                        .append("calories", new Document("$sum", "$calories"))
+                        .append("protein", new Document("$sum", "$protein"))
+                        .append("carbs", new Document("$sum", "$carbs"))
+                        .append("fat", new Document("$sum", "$fat")))),
+                sort(Sort.Direction.ASC, "_id"));
+    }
+
+    // Midnight in the user's zone as the server-zone LocalDateTime meals are stored with
+    private static LocalDateTime storedTime(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    static MacrosDTO.Period periodOf(LocalDate start, LocalDate next, LocalDate today, Totals eaten,
+            MacrosDTO.Macros daily) {
+        MacrosDTO.Period period = new MacrosDTO.Period();
+        period.setStart(start.toString());
+        period.setEnd(next.minusDays(1).toString());
+        LocalDate counted = next.isAfter(today) ? today.plusDays(1) : next;
+        int days = (int) Math.max(0, ChronoUnit.DAYS.between(start, counted));
+        period.setDays(days);
+        period.setCurrent(!start.isAfter(today) && next.isAfter(today));
+        period.setMeals(eaten.meals());
+
+        period.setEaten(macros(eaten.calories(), eaten.protein(), eaten.carbs(), eaten.fat()));
+        period.setTarget(macros(daily.getCalories() * days, daily.getProtein() * days, daily.getCarbs() * days,
+                daily.getFat() * days));
+        period.setDelta(macros(eaten.calories() - period.getTarget().getCalories(),
+                eaten.protein() - period.getTarget().getProtein(),
+                eaten.carbs() - period.getTarget().getCarbs(),
+                eaten.fat() - period.getTarget().getFat()));
+
+        double kcal = 4.0 * eaten.protein() + 4.0 * eaten.carbs() + 9.0 * eaten.fat();
+        if (kcal > 0) {
+            period.setProteinRatio(ratio(4.0 * eaten.protein(), kcal));
+            period.setCarbsRatio(ratio(4.0 * eaten.carbs(), kcal));
+            period.setFatRatio(ratio(9.0 * eaten.fat(), kcal));
+        }
+        return period;
+    }
+
+    /**
+     * Daily calories from Mifflin-St Jeor with a moderate activity factor, adjusted and
+     * split into macros by goal. Without weight, height and age it starts from 2000 kcal.
+     */
+    static MacrosDTO.Macros dailyTarget(User user) {
+        double maintenance = 2000;
+        if (user.getWeight_kg() > 0 && user.getHeight_cm() > 0 && user.getAge() > 0) {
+            String gender = user.getGender() != null ? user.getGender().toLowerCase(Locale.ROOT) : "";
+            double offset = gender.startsWith("m") ? 5 : gender.startsWith("f") ? -161 : -78;
+            double bmr = 10 * user.getWeight_kg() + 6.25 * user.getHeight_cm() - 5 * user.getAge() + offset;
+            maintenance = bmr * 1.55;
+        }
+
+        String goal = user.getGoal() != null ? user.getGoal().toLowerCase(Locale.ROOT) : "";
+        // Calorie adjustment and protein/carbs/fat shares of calories
+        double adjust = 0;
+        double[] split = {0.25, 0.50, 0.25};
+        if (goal.contains("lose")) {
+            adjust = -500;
+            split = new double[] {0.35, 0.35, 0.30};
+        } else if (goal.contains("muscle")) {
+            adjust = 300;
+            split = new double[] {0.30, 0.45, 0.25};
+        } else if (goal.contains("endurance")) {
+            split = new double[] {0.20, 0.60, 0.20};
+        }
+
+        long calories = Math.round(maintenance + adjust);
+        return macros(calories, Math.round(calories * split[0] / 4), Math.round(calories * split[1] / 4),
+                Math.round(calories * split[2] / 9));
+    }
+
+    private static MacrosDTO.Macros macros(long calories, long protein, long carbs, long fat) {
+        MacrosDTO.Macros macros = new MacrosDTO.Macros();
+        macros.setCalories(calories);
+        macros.setProtein(protein);
+        macros.setCarbs(carbs);
+        macros.setFat(fat);
+        return macros;
+    }
+
+    private static double ratio(double part, double whole) {
+        return Math.round(part / whole * 1000) / 1000.0;
+    }
+
+    private record PeriodKey(String userId, long generation, ZoneId zone, Granularity granularity,
+            LocalDate start) {
+    }
+
+    record Totals(long meals, long calories, long protein, long carbs, long fat) {
+        static final Totals NONE = new Totals(0, 0, 0, 0, 0);
+    }
+}
@@ -1,12 +1,23 @@
 package com.echobody.service;
 
+import com.echobody.dto.BatchResult;
+import com.echobody.dto.CursorPage;
+import com.echobody.dto.KeysetCursor;
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.MealSummary;
 import com.echobody.model.Meal;
 import com.echobody.repository.MealRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class MealService {
@@ -14,22 +25,82 @@ public class MealService {
     @Autowired
     private MealRepository mealRepository;
 
-    public List<Meal> getUserMeals(String userId) {
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public List<MealSummary> getUserMeals(String userId) {
         return mealRepository.findByUserIdOrderByDateTimeDesc(userId);
     }
 
+    public CursorPage<MealSummary> getUserMeals(String userId, ListQuery query) {
+        KeysetCursor after = KeysetCursor.decode(query.getAfter());
+        if (after != null) {
+            return CursorPage.newerThan(mealRepository.findPageAfter(userId, query.fromTime(), query.toTime(),
+                    after.getDate(), after.idValue(), query.pageable(Sort.Direction.ASC, "dateTime")),
+                    MealService::cursorOf);
+        }
+        KeysetCursor before = KeysetCursor.decode(query.getBefore());
+        if (before != null) {
+            return CursorPage.olderThan(mealRepository.findPageBefore(userId, query.fromTime(), query.toTime(),
+                    before.getDate(), before.idValue(), query.pageable(Sort.Direction.DESC, "dateTime")), true,
+                    MealService::cursorOf);
+        }
+        return CursorPage.olderThan(mealRepository.findPage(userId, query.fromTime(), query.toTime(),
+                query.pageable(Sort.Direction.DESC, "dateTime")), false, MealService::cursorOf);
+    }
+
+    // The whole meal, description and notes included; empty unless it belongs to the user
+    public Optional<Meal> getMeal(String id, String userId) {
+        return mealRepository.findById(id).filter(meal -> userId.equals(meal.getUserId()));
+    }
+
     public Meal logMeal(Meal meal, String userId) {
         meal.setUserId(userId);
         if (meal.getDateTime() == null) {
             meal.setDateTime(LocalDateTime.now());
         }
-        return mealRepository.save(meal);
+        Meal saved = mealRepository.save(meal);
+        added(userId, List.of(saved));
+        return saved;
+    }
+
+    /**
+     * Inserts one chunk of a batch upload with a single bulk write.
+     * Results are indexed by position in {@code meals}.
+     */
+    public List<BatchResult.Item> logMeals(List<Meal> meals, String userId) {
+        for (Meal meal : meals) {
+            meal.setUserId(userId);
+            meal.setId(new ObjectId().toHexString());
+            if (meal.getDateTime() == null) {
+                meal.setDateTime(LocalDateTime.now());
+            }
+        }
+
+        Map<Integer, String> errors = mealRepository.insertAll(meals);
+
+        List<BatchResult.Item> results = new ArrayList<>(meals.size());
+        List<Meal> inserted = new ArrayList<>(meals.size());
+        for (int i = 0; i < meals.size(); i++) {
+            if (errors.containsKey(i)) {
+                results.add(BatchResult.Item.failed(i, errors.get(i)));
+            } else {
+                results.add(BatchResult.Item.created(i, meals.get(i).getId()));
+                inserted.add(meals.get(i));
+            }
+        }
+        added(userId, inserted);
+        return results;
     }
 
     public Meal updateMeal(String id, Meal meal, String userId) {
         return mealRepository.findById(id)
                 .map(existingMeal -> {
                     if (existingMeal.getUserId().equals(userId)) {
+                        int previousCalories = existingMeal.getCalories();
                         existingMeal.setTitle(meal.getTitle());
                         existingMeal.setCalories(meal.getCalories());
                         existingMeal.setProtein(meal.getProtein());
@@ -37,14 +108,38 @@ public class MealService {
                         existingMeal.setFat(meal.getFat());
                         existingMeal.setType(meal.getType());
                         existingMeal.setNotes(meal.getNotes());
-                        return mealRepository.save(existingMeal);
+                        Meal saved = mealRepository.save(existingMeal);
+                        rollupService.mealCaloriesChanged(saved, previousCalories);
+                        changed(userId);
+                        return saved;
                     }
                     return null;
                 })
                 .orElse(null);
     }
 
-    public void deleteMeal(String id) {
-        mealRepository.deleteById(id);
+    // False when the user has no meal with this id
+    public boolean deleteMeal(String id, String userId) {
+        return mealRepository.deleteByIdAndUserId(id, userId).map(meal -> {
+            rollupService.mealRemoved(meal);
+            changed(userId);
+            return true;
+        }).orElse(false);
+    }
+
+    // Single and batch inserts alike: count them in the rollup, then announce the write
+    private void added(String userId, List<Meal> inserted) {
+        if (!inserted.isEmpty()) {
+            rollupService.mealsAdded(userId, inserted);
+            changed(userId);
+        }
+    }
+
+    private void changed(String userId) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.DataType.MEALS));
+    }
+
+    private static KeysetCursor cursorOf(MealSummary entity) {
+        return new KeysetCursor(entity.getDateTime(), entity.getId());
     }
 }
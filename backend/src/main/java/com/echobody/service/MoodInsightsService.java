@@ -0,0 +1,277 @@
+package com.echobody.service;
+
+import com.echobody.dto.MoodInsightsDTO;
+import com.echobody.repository.WorkoutStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Mood and energy next to training volume and calorie balance. Mood entries, workouts
+ * and meals are each grouped per day in the database and read back in day order, then
+ * merged in a single pass; no per-entry rows leave Mongo and nothing is held beyond the
+ * result. Results are cached per user until the user's next write.
+ */
+@Service
+public class MoodInsightsService {
+
+    private final MongoTemplate mongoTemplate;
+    private final WorkoutStore workoutStore;
+
+    // One entry per (user, generation, range). A write gives the user a new generation, so
+    // their older entries are never read again and age out with the rest
+    private final Cache<Key, MoodInsightsDTO> cache;
+    private final Cache<String, Long> generations;
+    private final AtomicLong nextGeneration = new AtomicLong();
+
+    public MoodInsightsService(MongoTemplate mongoTemplate, WorkoutStore workoutStore, MeterRegistry meterRegistry,
+            @Value("${app.mood.insights-cache.max-size:10000}") long maxSize,
+            @Value("${app.mood.insights-cache.ttl:30m}") Duration ttl) {
+        this.mongoTemplate = mongoTemplate;
+        this.workoutStore = workoutStore;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Losing a user's generation is harmless: the next read draws a fresh one
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "moodInsights");
+    }
+
+    public MoodInsightsDTO getInsights(String userId, LocalDate from, LocalDate to) {
+        // A write while this computes moves the user on to a new generation, so the result
+        // is stored under a key no later read uses
+        long generation = generations.get(userId, id -> nextGeneration.incrementAndGet());
+        return cache.get(new Key(userId, generation, from, to), key -> compute(userId, from, to));
+    }
+
+    @EventListener
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        generations.invalidate(event.getUserId());
+    }
+
+    private MoodInsightsDTO compute(String userId, LocalDate from, LocalDate to) {
+        try (Stream<Document> moods = mongoTemplate.aggregateStream(moodAggregation(userId, from, to),
+                     "mood_entries", Document.class);
+             Stream<Document> workouts = mongoTemplate.aggregateStream(
+                     workoutAggregation(workoutStore, userId, from, to), workoutStore.collection(), Document.class);
+             Stream<Document> meals = mongoTemplate.aggregateStream(mealAggregation(userId, from, to),
+                     "meals", Document.class)) {
+            return merge(moods.iterator(), workouts.iterator(), meals.iterator());
+        }
+    }
+
+    static Aggregation moodAggregation(String userId, LocalDate from, LocalDate to) {
+        return newAggregation(
+                match(between(userId, "date", from, to)),
+                sort(Sort.Direction.ASC, "date"),
+                project("mood", "energy").and(ProgressService.dayOf("date")).as("day"),
+                group("day").count().as("entries").sum("energy").as("energy").last("mood").as("mood"),
+                sort(Sort.Direction.ASC, "_id"));
+    }
+
+    static Aggregation workoutAggregation(WorkoutStore store, String userId, LocalDate from, LocalDate to) {
+        return store.over(userId, from, to, newAggregation(
+                match(ProgressService.workoutsOf(userId, from, to, true)),
+                project("caloriesBurned")
+                        .and(ProgressService.dayOf("date")).as("day")
+                        .and(ArithmeticOperators.Multiply.valueOf("sets").multiplyBy("reps").multiplyBy("weight"))
+                        .as("volume"),
+                group("day").sum("volume").as("volume").sum("caloriesBurned").as("burned"),
+                sort(Sort.Direction.ASC, "_id")));
+    }
+
+    static Aggregation mealAggregation(String userId, LocalDate from, LocalDate to) {
+        return newAggregation(
+                match(between(userId, "dateTime", from, to)),
+                project("calories").and(ProgressService.dayOf("dateTime")).as("day"),
+                group("day").sum("calories").as("consumed"),
+                sort(Sort.Direction.ASC, "_id"));
+    }
+
+    private static Criteria between(String userId, String field, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        Criteria date = criteria.and(field).ne(null);
+        if (from != null) {
+            date.gte(from.atStartOfDay());
+        }
+        if (to != null) {
+            date.lt(to.plusDays(1).atStartOfDay());
+        }
+        return criteria;
+    }
+
+    /**
+     * Merges the three per-day cursors, each ordered by day ("yyyy-MM-dd" sorts as text).
+     * Each step takes the earliest day at the head of any cursor and consumes it from
+     * every cursor that has it.
+     */
+    static MoodInsightsDTO merge(Iterator<Document> moods, Iterator<Document> workouts, Iterator<Document> meals) {
+        MoodInsightsDTO insights = new MoodInsightsDTO();
+        Correlation energyVsVolume = new Correlation();
+        Correlation energyVsBalance = new Correlation();
+        Document mood = next(moods);
+        Document workout = next(workouts);
+        Document meal = next(meals);
+        WeekTotals week = null;
+
+        while (mood != null || workout != null || meal != null) {
+            String day = earliest(earliest(dayOf(mood), dayOf(workout)), dayOf(meal));
+            long entries = 0;
+            long energy = 0;
+            String label = null;
+            double volume = 0;
+            long burned = 0;
+            long consumed = 0;
+            if (day.equals(dayOf(mood))) {
+                entries = ProgressService.number(mood, "entries");
+                energy = ProgressService.number(mood, "energy");
+                label = mood.getString("mood");
+                mood = next(moods);
+            }
+            if (day.equals(dayOf(workout))) {
+                volume = workout.get("volume") instanceof Number n ? n.doubleValue() : 0;
+                burned = ProgressService.number(workout, "burned");
+                workout = next(workouts);
+            }
+            if (day.equals(dayOf(meal))) {
+                consumed = ProgressService.number(meal, "consumed");
+                meal = next(meals);
+            }
+
+            LocalDate weekStart = LocalDate.parse(day).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            if (week == null || !week.start.equals(weekStart)) {
+                if (week != null) {
+                    insights.getWeeks().add(week.toWeek());
+                }
+                week = new WeekTotals(weekStart);
+            }
+            week.add(entries, energy, volume, consumed - burned);
+
+            if (entries > 0) {
+                MoodInsightsDTO.Day row = new MoodInsightsDTO.Day();
+                row.setDate(day);
+                row.setMood(label);
+                row.setMoodEntries(entries);
+                row.setAverageEnergy((double) energy / entries);
+                row.setWorkoutVolume(volume);
+                row.setCaloriesConsumed(consumed);
+                row.setCaloriesBurned(burned);
+                row.setCalorieBalance(consumed - burned);
+                insights.getDays().add(row);
+                energyVsVolume.add(row.getAverageEnergy(), volume);
+                energyVsBalance.add(row.getAverageEnergy(), consumed - burned);
+            }
+        }
+        if (week != null) {
+            insights.getWeeks().add(week.toWeek());
+        }
+        insights.setEnergyVsVolume(energyVsVolume.value());
+        insights.setEnergyVsCalorieBalance(energyVsBalance.value());
+        return insights;
+    }
+
+    private static Document next(Iterator<Document> cursor) {
+        return cursor.hasNext() ? cursor.next() : null;
+    }
+
+    private static String dayOf(Document row) {
+        return row != null ? row.getString("_id") : null;
+    }
+
+    private static String earliest(String a, String b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private record Key(String userId, long generation, LocalDate from, LocalDate to) {
+    }
+
+    private static final class WeekTotals {
+
+        private final LocalDate start;
+        private long entries;
+        private long energy;
+        private double volume;
+        private long balance;
+
+        private WeekTotals(LocalDate start) {
+            this.start = start;
+        }
+
+        void add(long entries, long energy, double volume, long balance) {
+            this.entries += entries;
+            this.energy += energy;
+            this.volume += volume;
+            this.balance += balance;
+        }
+
+        MoodInsightsDTO.Week toWeek() {
+            MoodInsightsDTO.Week week = new MoodInsightsDTO.Week();
+            week.setWeekStart(start.toString());
+            week.setMoodEntries(entries);
+            week.setAverageEnergy(entries > 0 ? (double) energy / entries : null);
+            week.setWorkoutVolume(volume);
+            week.setCalorieBalance(balance);
+            return week;
+        }
+    }
+
+    // Pearson's r from running sums
+    private static final class Correlation {
+
+        private long n;
+        private double sumX;
+        private double sumY;
+        private double sumXX;
+        private double sumYY;
+        private double sumXY;
+
+        void add(double x, double y) {
+            n++;
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumYY += y * y;
+            sumXY += x * y;
+        }
+
+        Double value() {
+            if (n < 3) {
+                return null;
+            }
+            double varianceX = n * sumXX - sumX * sumX;
+            double varianceY = n * sumYY - sumY * sumY;
+            if (varianceX <= 0 || varianceY <= 0) {
+                return null;
+            }
+            return (n * sumXY - sumX * sumY) / Math.sqrt(varianceX * varianceY);
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.echobody.service;
 
+import com.echobody.dto.CursorPage;
+import com.echobody.dto.KeysetCursor;
+import com.echobody.dto.ListQuery;
 import com.echobody.model.MoodEntry;
 import com.echobody.repository.MoodRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -13,19 +18,53 @@ public class MoodService {
     @Autowired
     private MoodRepository moodRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<MoodEntry> getMoodEntries(String userId) {
         return moodRepository.findByUserIdOrderByDateDesc(userId);
     }
 
+    public CursorPage<MoodEntry> getMoodEntries(String userId, ListQuery query) {
+        KeysetCursor after = KeysetCursor.decode(query.getAfter());
+        if (after != null) {
+            return CursorPage.newerThan(moodRepository.findPageAfter(userId, query.fromTime(), query.toTime(),
+                    after.getDate(), after.idValue(), query.pageable(Sort.Direction.ASC, "date")),
+                    MoodService::cursorOf);
+        }
+        KeysetCursor before = KeysetCursor.decode(query.getBefore());
+        if (before != null) {
+            return CursorPage.olderThan(moodRepository.findPageBefore(userId, query.fromTime(), query.toTime(),
+                    before.getDate(), before.idValue(), query.pageable(Sort.Direction.DESC, "date")), true,
+                    MoodService::cursorOf);
+        }
+        return CursorPage.olderThan(moodRepository.findPage(userId, query.fromTime(), query.toTime(),
+                query.pageable(Sort.Direction.DESC, "date")), false, MoodService::cursorOf);
+    }
+
     public MoodEntry addMoodEntry(MoodEntry entry, String userId) {
         entry.setUserId(userId);
         if (entry.getDate() == null) {
             entry.setDate(LocalDateTime.now());
         }
-        return moodRepository.save(entry);
+        MoodEntry saved = moodRepository.save(entry);
+        changed(userId);
+        return saved;
+    }
+
+    // False when the user has no mood entry with this id
+    public boolean deleteMoodEntry(String id, String userId) {
+        return moodRepository.deleteByIdAndUserId(id, userId).map(entry -> {
+            changed(userId);
+            return true;
+        }).orElse(false);
+    }
+
+    private void changed(String userId) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.DataType.MOOD));
     }
 
-    public void deleteMoodEntry(String id) {
-        moodRepository.deleteById(id);
+    private static KeysetCursor cursorOf(MoodEntry entity) {
+        return new KeysetCursor(entity.getDate(), entity.getId());
     }
 }
@@ -0,0 +1,218 @@
+package com.echobody.service;
+
+import com.echobody.dto.PersonalRecordDTO;
+import com.echobody.model.PersonalRecord;
+import com.echobody.model.Workout;
+import com.echobody.repository.WorkoutStore;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Heaviest lift per exercise, stored in personal_records so /api/progress/records reads
+ * one row per exercise. Inserts can only raise a record, so they are a conditional
+ * upsert; an update or delete of the workout holding a record recomputes that one
+ * exercise. A user's records are built from their history on first read.
+ */
+@Service
+public class PersonalRecordService {
+
+    // Ties go to the earlier workout, as in ProgressService.recordsAggregation
+    private static final Comparator<PersonalRecord> BEST = Comparator
+            .comparingDouble(PersonalRecord::getWeight).reversed()
+            .thenComparing(PersonalRecord::getDate, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    public List<PersonalRecordDTO> getRecords(String userId) {
+        Query mine = Query.query(Criteria.where("userId").is(userId)).with(Sort.by(Sort.Direction.ASC, "name"));
+        List<PersonalRecord> records = mongoTemplate.find(mine, PersonalRecord.class);
+        if (records.stream().noneMatch(record -> record.getKey() == null)) {
+            records = rebuild(userId);
+        }
+        return records.stream()
+                .filter(record -> record.getKey() != null)
+                .map(PersonalRecordService::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public void workoutAdded(Workout workout) {
+        offer(recordOf(workout));
+    }
+
+    public void workoutsAdded(List<Workout> workouts) {
+        Map<String, PersonalRecord> best = new LinkedHashMap<>();
+        for (Workout workout : workouts) {
+            PersonalRecord record = recordOf(workout);
+            if (record != null) {
+                best.merge(record.getId(), record, (a, b) -> BEST.compare(a, b) <= 0 ? a : b);
+            }
+        }
+        best.values().forEach(this::offer);
+    }
+
+    public void workoutChanged(Workout workout, String previousName) {
+        String previousKey = keyOf(previousName);
+        if (previousKey != null && holdsRecord(workout.getUserId(), previousKey, workout.getId())) {
+            recompute(workout.getUserId(), previousKey);
+        }
+        offer(recordOf(workout));
+    }
+
+    public void workoutRemoved(Workout workout) {
+        String key = keyOf(workout.getName());
+        if (key != null && holdsRecord(workout.getUserId(), key, workout.getId())) {
+            recompute(workout.getUserId(), key);
+        }
+    }
+
+    /**
+     * Same normalization as the records pipeline: surrounding whitespace dropped, ASCII
+     * letters lower-cased ($toLower leaves other characters alone). Null when blank.
+     */
+    static String keyOf(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        char[] chars = name.strip().toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
+    // Replaces the record only if this one is heavier (or as heavy and earlier)
+    private void offer(PersonalRecord record) {
+        if (record == null) {
+            return;
+        }
+        Query weaker = Query.query(Criteria.where("_id").is(record.getId()).orOperator(
+                Criteria.where("weight").lt(record.getWeight()),
+                Criteria.where("weight").is(record.getWeight()).and("date").gt(record.getDate())));
+        try {
+            mongoTemplate.upsert(weaker, new Update()
+                    .set("userId", record.getUserId())
+                    .set("key", record.getKey())
+                    .set("name", record.getName())
+                    .set("workoutId", record.getWorkoutId())
+                    .set("weight", record.getWeight())
+                    .set("date", record.getDate()), PersonalRecord.class);
+        } catch (DuplicateKeyException ex) {
+            // The stored record is at least as good; the upsert tried to insert a second one
+        }
+    }
+
+    private boolean holdsRecord(String userId, String key, String workoutId) {
+        PersonalRecord current = mongoTemplate.findById(idOf(userId, key), PersonalRecord.class);
+        return current != null && Objects.equals(current.getWorkoutId(), workoutId);
+    }
+
+    private void recompute(String userId, String key) {
+        Document best = mongoTemplate.aggregate(workoutStore.over(userId, null, null, newAggregation(
+                match(Criteria.where("userId").is(userId).and("name").nin(null, "")),
+                project("_id", "name", "date", "weight")
+                        .and(StringOperators.ToLower.lowerValueOf(StringOperators.Trim.valueOf("name"))).as("key"),
+                match(Criteria.where("key").is(key)),
+                sort(Sort.by(Sort.Order.desc("weight"), Sort.Order.asc("date"))),
+                limit(1))), workoutStore.collection(), Document.class).getUniqueMappedResult();
+
+        if (best == null) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(idOf(userId, key))), PersonalRecord.class);
+            return;
+        }
+        Workout workout = mongoTemplate.getConverter().read(Workout.class, best);
+        workout.setUserId(userId);
+        mongoTemplate.save(recordOf(workout));
+    }
+
+    /**
+     * Replaces the user's records with ones computed from all of their workouts. Writes
+     * racing with a rebuild can be lost until the next write to that exercise.
+     */
+    public List<PersonalRecord> rebuild(String userId) {
+        Map<String, PersonalRecord> best = new LinkedHashMap<>();
+        mongoTemplate.aggregate(ProgressService.recordsAggregation(workoutStore, userId, null, null),
+                workoutStore.collection(), ProgressService.RecordRow.class).getMappedResults().forEach(row -> {
+                    Workout workout = new Workout();
+                    workout.setId(row.getWorkoutId());
+                    workout.setUserId(userId);
+                    workout.setName(row.getName());
+                    workout.setWeight(row.getWeight());
+                    workout.setDate(row.getDate());
+                    PersonalRecord record = recordOf(workout);
+                    if (record != null) {
+                        best.merge(record.getId(), record, (a, b) -> BEST.compare(a, b) <= 0 ? a : b);
+                    }
+                });
+
+        PersonalRecord built = new PersonalRecord();
+        built.setId(userId + "|");
+        built.setUserId(userId);
+
+        List<PersonalRecord> records = new ArrayList<>(best.values());
+        records.add(built);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PersonalRecord.class);
+        records.forEach(record -> bulk.replaceOne(Query.query(Criteria.where("_id").is(record.getId())), record,
+                FindAndReplaceOptions.options().upsert()));
+        bulk.execute();
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)
+                .and("_id").nin(records.stream().map(PersonalRecord::getId).toList())), PersonalRecord.class);
+        records.sort(Comparator.comparing(PersonalRecord::getName, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return records;
+    }
+
+    private static PersonalRecord recordOf(Workout workout) {
+        String key = keyOf(workout.getName());
+        if (key == null) {
+            return null;
+        }
+        PersonalRecord record = new PersonalRecord();
+        record.setId(idOf(workout.getUserId(), key));
+        record.setUserId(workout.getUserId());
+        record.setKey(key);
+        record.setName(workout.getName());
+        record.setWorkoutId(workout.getId());
+        record.setWeight(workout.getWeight());
+        record.setDate(workout.getDate());
+        return record;
+    }
+
+    private static PersonalRecordDTO toDto(PersonalRecord record) {
+        return new PersonalRecordDTO(
+                record.getWorkoutId(),
+                record.getName(),
+                record.getDate() != null ? record.getDate().toString() : "",
+                record.getWeight(),
+                "kg"
+        );
+    }
+
+    private static String idOf(String userId, String key) {
+        return userId + "|" + key;
+    }
+}
@@ -0,0 +1,233 @@
+package com.echobody.service;
+
+import com.echobody.dto.PersonalRecordDTO;
+import com.echobody.dto.ProgressSummaryDTO;
+import com.echobody.dto.TrendPointDTO;
+import com.echobody.model.UserRollup;
+import com.echobody.repository.WorkoutStore;
+import lombok.Data;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Progress statistics computed as MongoDB aggregation pipelines, so only the
+ * aggregated rows leave the database.
+ */
+@Service
+public class ProgressService {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    @Autowired
+    private DailyStatsService dailyStatsService;
+
+    @Autowired
+    private PersonalRecordService personalRecordService;
+
+    @Autowired
+    private StreakService streakService;
+
+    // Trend from user_daily_stats (one row per day) instead of the workouts themselves
+    @Value("${app.daily-stats.enabled:false}")
+    private boolean dailyStats;
+
+    public ProgressSummaryDTO getSummary(String userId, LocalDate from, LocalDate to) {
+        long totalWorkouts;
+        long totalCalories;
+        int longestStreak;
+        if (from == null && to == null) {
+            UserRollup rollup = rollupService.getRollup(userId);
+            totalWorkouts = rollup.getTotalWorkouts();
+            totalCalories = rollup.getTotalCaloriesBurned();
+            longestStreak = streakService.longestStreak(userId);
+        } else {
+            Document totals = mongoTemplate.aggregate(totalsAggregation(workoutStore, userId, from, to),
+                    workoutStore.collection(), Document.class).getUniqueMappedResult();
+            totalWorkouts = number(totals, "count");
+            totalCalories = number(totals, "calories");
+            longestStreak = getLongestStreak(userId, from, to);
+        }
+        return summaryOf(totalWorkouts, totalCalories, longestStreak);
+    }
+
+    public List<TrendPointDTO> getTrend(String userId, LocalDate from, LocalDate to) {
+        if (dailyStats) {
+            return dailyStatsService.getTrend(userId, from, to);
+        }
+        return mongoTemplate.aggregate(trendAggregation(workoutStore, userId, from, to),
+                        workoutStore.collection(), Document.class)
+                .getMappedResults().stream()
+                .map(ProgressService::trendPointOf)
+                .collect(Collectors.toList());
+    }
+
+    public List<PersonalRecordDTO> getRecords(String userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return personalRecordService.getRecords(userId);
+        }
+        return mongoTemplate.aggregate(recordsAggregation(workoutStore, userId, from, to),
+                        workoutStore.collection(), RecordRow.class)
+                .getMappedResults().stream()
+                .map(ProgressService::recordOf)
+                .collect(Collectors.toList());
+    }
+
+    public int getLongestStreak(String userId, LocalDate from, LocalDate to) {
+        Document result = mongoTemplate.aggregate(streakAggregation(workoutStore, userId, from, to),
+                workoutStore.collection(), Document.class).getUniqueMappedResult();
+        return (int) number(result, "longest");
+    }
+
+    // Pipelines and row mapping are shared with the reactive read path. Each pipeline is
+    // written against one document per workout and adapted to the store's layout
+
+    static Aggregation totalsAggregation(WorkoutStore store, String userId, LocalDate from, LocalDate to) {
+        return store.over(userId, from, to, newAggregation(
+                match(workoutsOf(userId, from, to)),
+                group().count().as("count").sum("caloriesBurned").as("calories")));
+    }
+
+    static ProgressSummaryDTO summaryOf(long totalWorkouts, long totalCalories, int longestStreak) {
+        ProgressSummaryDTO summary = new ProgressSummaryDTO();
+        summary.setTotalWorkouts(totalWorkouts);
+        summary.setTotalCaloriesBurned((int) totalCalories);
+        summary.setLongestStreak(longestStreak);
+
+        // Mock score logic: base 60 + (workouts/10) capped at 100
+        int score = (int) Math.min(100, 60 + (totalWorkouts / 2));
+        summary.setAvgEchoScore(score);
+
+        return summary;
+    }
+
+    static Aggregation trendAggregation(WorkoutStore store, String userId, LocalDate from, LocalDate to) {
+        // Simple score: 10 points per workout + calories/50, summed per calendar day
+        return store.over(userId, from, to, newAggregation(
+                match(workoutsOf(userId, from, to, true)),
+                project()
+                        .and(dayOf("date")).as("day")
+                        .and(ArithmeticOperators.Add.valueOf(
+                                ArithmeticOperators.Trunc.truncValueOf(
+                                        ArithmeticOperators.Divide.valueOf("caloriesBurned").divideBy(50)))
+                                .add(10)).as("points"),
+                group("day").sum("points").as("points"),
+                sort(Sort.Direction.ASC, "_id")));
+    }
+
+    static TrendPointDTO trendPointOf(Document day) {
+        return new TrendPointDTO(day.getString("_id"), Math.min(100, ((Number) day.get("points")).intValue()));
+    }
+
+    static Aggregation recordsAggregation(WorkoutStore store, String userId, LocalDate from, LocalDate to) {
+        // Heaviest lift per exercise; names are compared trimmed and case-insensitively
+        return store.over(userId, from, to, newAggregation(
+                match(workoutsOf(userId, from, to).and("name").nin(null, "")),
+                project("_id", "name", "date", "weight")
+                        .and(StringOperators.ToLower.lowerValueOf(StringOperators.Trim.valueOf("name"))).as("key"),
+                sort(Sort.by(Sort.Order.desc("weight"), Sort.Order.asc("date"))),
+                group("key")
+                        .first("_id").as("workoutId")
+                        .first("name").as("name")
+                        .first("date").as("date")
+                        .first("weight").as("weight"),
+                sort(Sort.Direction.ASC, "name")));
+    }
+
+    static PersonalRecordDTO recordOf(RecordRow row) {
+        return new PersonalRecordDTO(
+                row.getWorkoutId(),
+                row.getName(),
+                row.getDate() != null ? row.getDate().toString() : "",
+                row.getWeight(),
+                "kg" // Assuming kg
+        );
+    }
+
+    /**
+     * Longest run of consecutive active days. Days are numbered from the epoch and
+     * ranked in order; consecutive days share the same (dayNumber - rank) value, so
+     * each group of that value is one streak.
+     */
+    static Aggregation streakAggregation(WorkoutStore store, String userId, LocalDate from, LocalDate to) {
+        return store.over(userId, from, to, newAggregation(
+                match(workoutsOf(userId, from, to, true)),
+                project().and(dayOf("date")).as("day"),
+                group("day"),
+                stage(new Document("$project", new Document("dayNumber", new Document("$divide", List.of(
+                        new Document("$toLong", new Document("$dateFromString",
+                                new Document("dateString", "$_id").append("timezone", "UTC"))),
+                        MILLIS_PER_DAY))))),
+                stage(new Document("$setWindowFields", new Document("sortBy", new Document("dayNumber", 1))
+                        .append("output", new Document("rank", new Document("$documentNumber", new Document()))))),
+                stage(new Document("$group", new Document("_id",
+                        new Document("$subtract", List.of("$dayNumber", "$rank")))
+                        .append("length", new Document("$sum", 1)))),
+                stage(new Document("$group", new Document("_id", null)
+                        .append("longest", new Document("$max", "$length"))))));
+    }
+
+    static long number(Document document, String key) {
+        Object value = document != null ? document.get(key) : null;
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    static Criteria workoutsOf(String userId, LocalDate from, LocalDate to) {
+        return workoutsOf(userId, from, to, false);
+    }
+
+    static Criteria workoutsOf(String userId, LocalDate from, LocalDate to, boolean datedOnly) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (from == null && to == null) {
+            return datedOnly ? criteria.and("date").ne(null) : criteria;
+        }
+        Criteria date = criteria.and("date");
+        if (from != null) {
+            date.gte(from.atStartOfDay());
+        }
+        if (to != null) {
+            date.lt(to.plusDays(1).atStartOfDay());
+        }
+        return criteria;
+    }
+
+    // Calendar day in the server zone, matching how LocalDateTime values are stored
+    static DateOperators.DateToString dayOf(String field) {
+        return DateOperators.DateToString.dateOf(field)
+                .toString("%Y-%m-%d")
+                .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId()));
+    }
+
+    @Data
+    static class RecordRow {
+        private String workoutId;
+        private String name;
+        private LocalDateTime date;
+        private double weight;
+    }
+}
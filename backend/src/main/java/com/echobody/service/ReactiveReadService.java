@@ -0,0 +1,164 @@
+package com.echobody.service;
+
+import com.echobody.dto.DashboardSummary;
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.MealSummary;
+import com.echobody.dto.PersonalRecordDTO;
+import com.echobody.dto.ProgressSummaryDTO;
+import com.echobody.dto.TrendPointDTO;
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.UserDailyStats;
+import com.echobody.model.UserRollup;
+import com.echobody.model.UserStreak;
+import com.echobody.repository.ReactiveMealRepository;
+import com.echobody.repository.ReactiveMoodRepository;
+import com.echobody.repository.WorkoutRepository;
+import com.echobody.repository.WorkoutStore;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non-blocking versions of the dashboard, progress and list reads. They run the same
+ * pipelines and mapping as the blocking services, on the reactive Mongo driver.
+ */
+@Service
+public class ReactiveReadService {
+
+    // Items requested from the driver at a time; refilled as the client drains them
+    private static final int PREFETCH = 256;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    @Autowired
+    private ReactiveMealRepository mealRepository;
+
+    @Autowired
+    private ReactiveMoodRepository moodRepository;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private PersonalRecordService personalRecordService;
+
+    @Autowired
+    private StreakService streakService;
+
+    // Same source as ProgressService.getTrend
+    @Value("${app.daily-stats.enabled:false}")
+    private boolean dailyStats;
+
+    @Value("${app.fanout.timeout:2s}")
+    private Duration timeout;
+
+    public Mono<DashboardSummary> getDashboardSummary(String userId) {
+        // The rollup is required; the energy level and streak degrade to defaults
+        Mono<UserRollup> rollup = rollup(userId).timeout(timeout);
+        Mono<Optional<MoodEntry>> latestMood = moodRepository.findFirstByUserIdOrderByDateDesc(userId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .timeout(timeout)
+                .onErrorReturn(Optional.empty());
+        Mono<Integer> currentStreak = streak(userId)
+                .map(StreakService::current)
+                .timeout(timeout)
+                .onErrorReturn(0);
+        return Mono.zip(rollup, latestMood, currentStreak)
+                .map(parts -> DashboardService.summarize(parts.getT1(), parts.getT2(), parts.getT3()));
+    }
+
+    public Mono<ProgressSummaryDTO> getProgressSummary(String userId, LocalDate from, LocalDate to) {
+        Mono<Document> totals = from == null && to == null
+                ? rollup(userId).map(rollup -> new Document("count", rollup.getTotalWorkouts())
+                                .append("calories", rollup.getTotalCaloriesBurned()))
+                : reactiveMongoTemplate.aggregate(ProgressService.totalsAggregation(workoutStore, userId, from, to),
+                        workoutStore.collection(), Document.class).next().defaultIfEmpty(new Document());
+        Mono<Integer> longestStreak = from == null && to == null
+                ? streak(userId).map(UserStreak::getLongest)
+                : getLongestStreak(userId, from, to);
+        return Mono.zip(totals, longestStreak, (sums, streak) -> ProgressService.summaryOf(
+                ProgressService.number(sums, "count"), ProgressService.number(sums, "calories"), streak));
+    }
+
+    public Flux<TrendPointDTO> getTrend(String userId, LocalDate from, LocalDate to) {
+        if (dailyStats) {
+            return reactiveMongoTemplate.find(DailyStatsService.trendQuery(userId, from, to), UserDailyStats.class)
+                    .map(DailyStatsService::trendPointOf);
+        }
+        return reactiveMongoTemplate.aggregate(ProgressService.trendAggregation(workoutStore, userId, from, to),
+                workoutStore.collection(), Document.class).map(ProgressService::trendPointOf);
+    }
+
+    public Flux<PersonalRecordDTO> getRecords(String userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            // Stored records; the first read for a user builds them, so stay off the event loop
+            return Mono.fromCallable(() -> personalRecordService.getRecords(userId))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapIterable(records -> records);
+        }
+        return reactiveMongoTemplate.aggregate(ProgressService.recordsAggregation(workoutStore, userId, from, to),
+                workoutStore.collection(), ProgressService.RecordRow.class).map(ProgressService::recordOf);
+    }
+
+    public Mono<Integer> getLongestStreak(String userId, LocalDate from, LocalDate to) {
+        return reactiveMongoTemplate.aggregate(ProgressService.streakAggregation(workoutStore, userId, from, to),
+                workoutStore.collection(), Document.class)
+                .next()
+                .map(result -> (int) ProgressService.number(result, "longest"))
+                .defaultIfEmpty(0);
+    }
+
+    private Mono<UserStreak> streak(String userId) {
+        return reactiveMongoTemplate.findById(userId, UserStreak.class)
+                .switchIfEmpty(Mono.fromCallable(() -> streakService.rebuild(userId))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    // A missing rollup is built by the blocking service, off the event loop
+    private Mono<UserRollup> rollup(String userId) {
+        return reactiveMongoTemplate.findById(userId, UserRollup.class)
+                .switchIfEmpty(Mono.fromCallable(() -> rollupService.rebuild(userId))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    // Lists honour from/to and limit; without a limit the whole window is streamed
+    public Flux<WorkoutSummary> getWorkouts(String userId, ListQuery query) {
+        List<AggregationOperation> operations = new ArrayList<>(
+                workoutStore.window(userId, query.fromTime(), query.toTime()).getPipeline().getOperations());
+        operations.add(Aggregation.stage(new Document("$project", Document.parse(WorkoutRepository.SUMMARY_FIELDS))));
+        return limited(reactiveMongoTemplate.aggregate(Aggregation.newAggregation(operations),
+                workoutStore.collection(), WorkoutSummary.class), query);
+    }
+
+    public Flux<MealSummary> getMeals(String userId, ListQuery query) {
+        return limited(mealRepository.findWindow(userId, query.fromTime(), query.toTime()), query);
+    }
+
+    public Flux<MoodEntry> getMoodEntries(String userId, ListQuery query) {
+        return limited(moodRepository.findWindow(userId, query.fromTime(), query.toTime()), query);
+    }
+
+    private static <T> Flux<T> limited(Flux<T> items, ListQuery query) {
+        Flux<T> window = query.getLimit() != null ? items.take(Math.max(1, query.getLimit()), true) : items;
+        return window.limitRate(PREFETCH);
+    }
+}
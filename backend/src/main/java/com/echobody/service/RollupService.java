@@ -0,0 +1,282 @@
+package com.echobody.service;
+
+import com.echobody.model.Meal;
+import com.echobody.model.UserRollup;
+import com.echobody.model.Workout;
+import com.echobody.repository.WorkoutStore;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+@Service
+public class RollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    // Day buckets cover today plus the six days before it ("this week" on the dashboard)
+    static final int WINDOW_DAYS = 7;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    public void workoutAdded(Workout workout) {
+        applyWorkout(workout.getUserId(), workout.getDate(), 1, workout.getCaloriesBurned());
+    }
+
+    public void workoutRemoved(Workout workout) {
+        applyWorkout(workout.getUserId(), workout.getDate(), -1, -workout.getCaloriesBurned());
+    }
+
+    public void workoutCaloriesChanged(Workout workout, int previousCalories) {
+        int delta = workout.getCaloriesBurned() - previousCalories;
+        if (delta != 0) {
+            applyWorkout(workout.getUserId(), workout.getDate(), 0, delta);
+        }
+    }
+
+    /**
+     * Counts a bulk insert of one user's workouts with a single update.
+     */
+    public void workoutsAdded(String userId, List<Workout> workouts) {
+        if (workouts.isEmpty()) {
+            return;
+        }
+        Map<String, long[]> buckets = new HashMap<>();
+        long calories = 0;
+        for (Workout workout : workouts) {
+            calories += workout.getCaloriesBurned();
+            String bucket = bucketPath(workout.getDate());
+            if (bucket != null) {
+                long[] sums = buckets.computeIfAbsent(bucket, k -> new long[2]);
+                sums[0]++;
+                sums[1] += workout.getCaloriesBurned();
+            }
+        }
+
+        Update update = new Update().inc("totalWorkouts", workouts.size()).inc("totalCaloriesBurned", calories);
+        buckets.forEach((bucket, sums) -> update
+                .inc(bucket + ".workouts", sums[0])
+                .inc(bucket + ".caloriesBurned", sums[1]));
+        apply(userId, update);
+    }
+
+    public void mealRemoved(Meal meal) {
+        applyMeal(meal.getUserId(), meal.getDateTime(), -1, -meal.getCalories());
+    }
+
+    public void mealCaloriesChanged(Meal meal, int previousCalories) {
+        int delta = meal.getCalories() - previousCalories;
+        if (delta != 0) {
+            applyMeal(meal.getUserId(), meal.getDateTime(), 0, delta);
+        }
+    }
+
+    /**
+     * Counts a bulk insert of one user's meals with a single update.
+     */
+    public void mealsAdded(String userId, List<Meal> meals) {
+        if (meals.isEmpty()) {
+            return;
+        }
+        Map<String, long[]> buckets = new HashMap<>();
+        long calories = 0;
+        for (Meal meal : meals) {
+            calories += meal.getCalories();
+            String bucket = bucketPath(meal.getDateTime());
+            if (bucket != null) {
+                long[] sums = buckets.computeIfAbsent(bucket, k -> new long[2]);
+                sums[0]++;
+                sums[1] += meal.getCalories();
+            }
+        }
+
+        Update update = new Update().inc("totalMeals", meals.size()).inc("totalCaloriesConsumed", calories);
+        buckets.forEach((bucket, sums) -> update
+                .inc(bucket + ".meals", sums[0])
+                .inc(bucket + ".caloriesConsumed", sums[1]));
+        apply(userId, update);
+    }
+
+    private void applyWorkout(String userId, LocalDateTime date, long count, long calories) {
+        Update update = new Update().inc("totalWorkouts", count).inc("totalCaloriesBurned", calories);
+        String bucket = bucketPath(date);
+        if (bucket != null) {
+            update.inc(bucket + ".workouts", count).inc(bucket + ".caloriesBurned", calories);
+        }
+        apply(userId, update);
+    }
+
+    private void applyMeal(String userId, LocalDateTime dateTime, long count, long calories) {
+        Update update = new Update().inc("totalMeals", count).inc("totalCaloriesConsumed", calories);
+        String bucket = bucketPath(dateTime);
+        if (bucket != null) {
+            update.inc(bucket + ".meals", count).inc(bucket + ".caloriesConsumed", calories);
+        }
+        apply(userId, update);
+    }
+
+    private void apply(String userId, Update update) {
+        // No upsert: a missing rollup means this user predates rollups (or was never
+        // counted), so rebuild from the raw collections instead of starting at zero
+        UpdateResult result = mongoTemplate.updateFirst(byId(userId), update, UserRollup.class);
+        if (result.getMatchedCount() == 0) {
+            rebuild(userId);
+        }
+    }
+
+    /**
+     * Returns the user's rollup, building it on first access. Day buckets that have
+     * fallen out of the window are dropped from the stored document.
+     */
+    public UserRollup getRollup(String userId) {
+        UserRollup rollup = findRollup(userId);
+        return rollup != null ? rollup : rebuild(userId);
+    }
+
+    /**
+     * Like {@link #getRollup} but returns null instead of building a missing rollup, for
+     * callers that must not run the rebuild under a timeout.
+     */
+    public UserRollup findRollup(String userId) {
+        UserRollup rollup = mongoTemplate.findById(userId, UserRollup.class);
+        if (rollup == null) {
+            return null;
+        }
+
+        String windowStart = windowStart().toString();
+        List<String> expired = rollup.getDays().keySet().stream()
+                .filter(day -> day.compareTo(windowStart) < 0)
+                .toList();
+        if (!expired.isEmpty()) {
+            Update prune = new Update();
+            expired.forEach(day -> prune.unset("days." + day));
+            mongoTemplate.updateFirst(byId(userId), prune, UserRollup.class);
+            expired.forEach(rollup.getDays()::remove);
+        }
+        return rollup;
+    }
+
+    /**
+     * Recomputes a user's rollup from the workouts and meals collections and replaces
+     * the stored document. Writes racing with a rebuild can be lost; the nightly
+     * repair pass corrects that drift.
+     */
+    public UserRollup rebuild(String userId) {
+        UserRollup rollup = new UserRollup();
+        rollup.setId(userId);
+
+        Document workoutTotals = first(workoutStore.over(userId, null, null, totals(userId, "caloriesBurned")),
+                workoutStore.collection());
+        rollup.setTotalWorkouts(number(workoutTotals, "count"));
+        rollup.setTotalCaloriesBurned(number(workoutTotals, "calories"));
+
+        Document mealTotals = first(totals(userId, "calories"), "meals");
+        rollup.setTotalMeals(number(mealTotals, "count"));
+        rollup.setTotalCaloriesConsumed(number(mealTotals, "calories"));
+
+        for (Document day : rows(workoutStore.over(userId, windowStart(), null,
+                recentDays(userId, "date", "caloriesBurned")), workoutStore.collection())) {
+            UserRollup.DayBucket bucket = rollup.getDays().computeIfAbsent(day.getString("_id"),
+                    k -> new UserRollup.DayBucket());
+            bucket.setWorkouts(number(day, "count"));
+            bucket.setCaloriesBurned(number(day, "calories"));
+        }
+        for (Document day : rows(recentDays(userId, "dateTime", "calories"), "meals")) {
+            UserRollup.DayBucket bucket = rollup.getDays().computeIfAbsent(day.getString("_id"),
+                    k -> new UserRollup.DayBucket());
+            bucket.setMeals(number(day, "count"));
+            bucket.setCaloriesConsumed(number(day, "calories"));
+        }
+
+        return mongoTemplate.save(rollup);
+    }
+
+    @Scheduled(cron = "${app.rollups.repair-cron:0 30 3 * * *}")
+    public void repairAll() {
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.addAll(mongoTemplate.findDistinct(new Query(), "userId", workoutStore.collection(), String.class));
+        userIds.addAll(mongoTemplate.findDistinct(new Query(), "userId", "meals", String.class));
+
+        int repaired = 0;
+        for (String userId : userIds) {
+            try {
+                rebuild(userId);
+                repaired++;
+            } catch (Exception ex) {
+                log.warn("Could not rebuild rollup for user {}", userId, ex);
+            }
+        }
+        log.info("Rebuilt dashboard rollups for {} of {} users", repaired, userIds.size());
+    }
+
+    public static LocalDate windowStart() {
+        return LocalDate.now().minusDays(WINDOW_DAYS - 1);
+    }
+
+    private static Aggregation totals(String userId, String caloriesField) {
+        return newAggregation(
+                match(Criteria.where("userId").is(userId)),
+                group().count().as("count").sum(caloriesField).as("calories"));
+    }
+
+    private static Aggregation recentDays(String userId, String dateField, String caloriesField) {
+        return newAggregation(
+                match(Criteria.where("userId").is(userId)
+                        .and(dateField).gte(windowStart().atStartOfDay())),
+                project(caloriesField).and(DateOperators.DateToString.dateOf(dateField)
+                        .toString("%Y-%m-%d")
+                        .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId())))
+                        .as("day"),
+                group("day").count().as("count").sum(caloriesField).as("calories"));
+    }
+
+    private Document first(Aggregation aggregation, String collection) {
+        Document result = mongoTemplate.aggregate(aggregation, collection, Document.class).getUniqueMappedResult();
+        return result != null ? result : new Document();
+    }
+
+    private List<Document> rows(Aggregation aggregation, String collection) {
+        return new ArrayList<>(mongoTemplate.aggregate(aggregation, collection, Document.class).getMappedResults());
+    }
+
+    private static String bucketPath(LocalDateTime date) {
+        if (date == null || date.toLocalDate().isBefore(windowStart())) {
+            return null;
+        }
+        return "days." + date.toLocalDate();
+    }
+
+    private static long number(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static Query byId(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+}
@@ -0,0 +1,264 @@
+package com.echobody.service;
+
+import com.echobody.model.User;
+import com.echobody.model.UserStreak;
+import com.echobody.model.Workout;
+import com.echobody.repository.UserRepository;
+import com.echobody.repository.WorkoutStore;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Current and longest workout streaks from the day bitsets in user_streaks. A write
+ * sets or clears its day's bit with one atomic $bit, then stores the longest streak
+ * computed from the returned bitsets (a few words per year), so neither updates nor
+ * reads scan workout history. A user's bitsets are built from their history on first
+ * use and again when their time zone changes.
+ */
+@Service
+public class StreakService {
+
+    private static final int WORDS_PER_YEAR = 6;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WorkoutStore workoutStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public UserStreak getStreak(String userId) {
+        UserStreak streak = findStreak(userId);
+        return streak != null ? streak : rebuild(userId);
+    }
+
+    // Null until the first rebuild
+    public UserStreak findStreak(String userId) {
+        return mongoTemplate.findById(userId, UserStreak.class);
+    }
+
+    public int currentStreak(String userId) {
+        return current(getStreak(userId));
+    }
+
+    public int longestStreak(String userId) {
+        return getStreak(userId).getLongest();
+    }
+
+    public void workoutAdded(Workout workout) {
+        workoutsAdded(workout.getUserId(), List.of(workout));
+    }
+
+    /**
+     * Marks the days of a bulk insert of one user's workouts with a single update.
+     */
+    public void workoutsAdded(String userId, List<Workout> workouts) {
+        if (workouts.isEmpty()) {
+            return;
+        }
+        ZoneId zone = storedZone(userId);
+        if (zone == null) {
+            rebuild(userId);
+            return;
+        }
+        Map<String, Long> masks = new HashMap<>();
+        for (Workout workout : workouts) {
+            if (workout.getDate() != null) {
+                LocalDate day = dayOf(workout.getDate(), zone);
+                masks.merge(wordPath(day), mask(day), (a, b) -> a | b);
+            }
+        }
+        if (!masks.isEmpty()) {
+            Update update = new Update().inc("version", 1);
+            masks.forEach((path, mask) -> update.bitwise(path).or(mask));
+            apply(userId, update);
+        }
+    }
+
+    public void workoutRemoved(Workout workout) {
+        if (workout.getDate() == null) {
+            return;
+        }
+        String userId = workout.getUserId();
+        ZoneId zone = storedZone(userId);
+        if (zone == null) {
+            rebuild(userId);
+            return;
+        }
+        LocalDate day = dayOf(workout.getDate(), zone);
+        if (activeOn(userId, day, zone)) {
+            return;
+        }
+        apply(userId, new Update().inc("version", 1).bitwise(wordPath(day)).and(~mask(day)));
+        // A workout logged for that day meanwhile may have set the bit just before it was cleared
+        if (activeOn(userId, day, zone)) {
+            apply(userId, new Update().inc("version", 1).bitwise(wordPath(day)).or(mask(day)));
+        }
+    }
+
+    /**
+     * Recomputes a user's bitsets in their current time zone and replaces the stored
+     * document. Writes racing with a rebuild can be lost until the next rebuild.
+     */
+    public UserStreak rebuild(String userId) {
+        ZoneId zone = zoneOf(userRepository.findByEmail(userId).map(User::getTimezone).orElse(null));
+        UserStreak previous = mongoTemplate.findById(userId, UserStreak.class);
+
+        UserStreak streak = new UserStreak();
+        streak.setId(userId);
+        streak.setZone(zone.getId());
+        streak.setVersion(previous != null ? previous.getVersion() + 1 : 0);
+        Aggregation days = workoutStore.over(userId, null, null, newAggregation(
+                match(ProgressService.workoutsOf(userId, null, null, true)),
+                project().and(DateOperators.DateToString.dateOf("date")
+                        .toString("%Y-%m-%d")
+                        .withTimezone(DateOperators.Timezone.valueOf(zone.getId()))).as("day"),
+                group("day")));
+        for (Document row : mongoTemplate.aggregate(days, workoutStore.collection(), Document.class)) {
+            LocalDate day = LocalDate.parse(row.getString("_id"));
+            streak.getYears().computeIfAbsent(String.valueOf(day.getYear()), k -> new HashMap<>())
+                    .merge(String.valueOf(index(day) / Long.SIZE), mask(day), (a, b) -> a | b);
+        }
+        streak.setLongest(longest(streak.getYears()));
+        return mongoTemplate.save(streak);
+    }
+
+    // Only the latest writer's longest sticks: earlier ones no longer match the version
+    private void apply(String userId, Update update) {
+        UserStreak streak = mongoTemplate.findAndModify(byId(userId), update,
+                FindAndModifyOptions.options().returnNew(true), UserStreak.class);
+        if (streak == null) {
+            rebuild(userId);
+            return;
+        }
+        int longest = longest(streak.getYears());
+        if (longest != streak.getLongest()) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)
+                    .and("version").is(streak.getVersion())), new Update().set("longest", longest), UserStreak.class);
+        }
+    }
+
+    private ZoneId storedZone(String userId) {
+        Query query = byId(userId);
+        query.fields().include("zone");
+        UserStreak streak = mongoTemplate.findOne(query, UserStreak.class);
+        return streak != null ? zoneOf(streak.getZone()) : null;
+    }
+
+    private boolean activeOn(String userId, LocalDate day, ZoneId zone) {
+        LocalDateTime start = serverTime(day, zone);
+        LocalDateTime end = serverTime(day.plusDays(1), zone);
+        Aggregation any = workoutStore.over(userId, start.toLocalDate(), end.toLocalDate(), newAggregation(
+                match(Criteria.where("userId").is(userId).and("date").gte(start).lt(end)),
+                limit(1)));
+        return mongoTemplate.aggregate(any, workoutStore.collection(), Document.class)
+                .getUniqueMappedResult() != null;
+    }
+
+    /**
+     * Consecutive active days ending today in the streak's zone, or ending yesterday
+     * while today has nothing logged yet.
+     */
+    static int current(UserStreak streak) {
+        return current(streak.getYears(), LocalDate.now(zoneOf(streak.getZone())));
+    }
+
+    static int current(Map<String, Map<String, Long>> years, LocalDate today) {
+        LocalDate day = isActive(years, today) ? today : today.minusDays(1);
+        int streak = 0;
+        while (isActive(years, day)) {
+            streak++;
+            day = day.minusDays(1);
+        }
+        return streak;
+    }
+
+    static int longest(Map<String, Map<String, Long>> years) {
+        int longest = 0;
+        int run = 0;
+        long previous = Long.MIN_VALUE;
+        // Four-digit years, so string order is year order
+        for (String year : new TreeSet<>(years.keySet())) {
+            Map<String, Long> words = years.get(year);
+            for (int word = 0; word < WORDS_PER_YEAR; word++) {
+                Long value = words.get(String.valueOf(word));
+                long bits = value != null ? value : 0L;
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    long day = LocalDate.ofYearDay(Integer.parseInt(year), word * Long.SIZE + bit + 1).toEpochDay();
+                    run = day == previous + 1 ? run + 1 : 1;
+                    previous = day;
+                    longest = Math.max(longest, run);
+                }
+            }
+        }
+        return longest;
+    }
+
+    static boolean isActive(Map<String, Map<String, Long>> years, LocalDate day) {
+        Map<String, Long> words = years.get(String.valueOf(day.getYear()));
+        Long word = words != null ? words.get(String.valueOf(index(day) / Long.SIZE)) : null;
+        return word != null && (word & mask(day)) != 0;
+    }
+
+    /**
+     * The user's zone, or the server zone when none (or an unknown one) is set.
+     */
+    public static ZoneId zoneOf(String zone) {
+        if (zone == null || zone.isBlank()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException ex) {
+            return ZoneId.systemDefault();
+        }
+    }
+
+    // Workout times are server-zone local times
+    static LocalDate dayOf(LocalDateTime date, ZoneId zone) {
+        return date.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDate();
+    }
+
+    private static LocalDateTime serverTime(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static int index(LocalDate day) {
+        return day.getDayOfYear() - 1;
+    }
+
+    private static long mask(LocalDate day) {
+        return 1L << (index(day) % Long.SIZE);
+    }
+
+    private static String wordPath(LocalDate day) {
+        return "years." + day.getYear() + "." + index(day) / Long.SIZE;
+    }
+
+    private static Query byId(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+}
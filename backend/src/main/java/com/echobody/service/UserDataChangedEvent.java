@@ -0,0 +1,27 @@
+package com.echobody.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a user's workouts, meals, mood entries or profile have been written.
+ * Remote events are replays of writes made on another node (see CacheInvalidationBus);
+ * listeners that only drop node-local state handle both, listeners that write shared
+ * state skip remote ones.
+ */
+@Getter
+@AllArgsConstructor
+public class UserDataChangedEvent {
+
+    public enum DataType {
+        WORKOUTS, MEALS, MOOD, PROFILE
+    }
+
+    private final String userId;
+    private final DataType type;
+    private final boolean remote;
+
+    public UserDataChangedEvent(String userId, DataType type) {
+        this(userId, type, false);
+    }
+}
@@ -2,9 +2,12 @@ package com.echobody.service;
 
 import com.echobody.model.User;
 import com.echobody.repository.UserRepository;
+import com.echobody.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -13,6 +16,15 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private StreakService streakService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public User updateUserProfile(String email, User updatedUser) {
         Optional<User> userOpt = userRepository.findByEmail(email);
         if (userOpt.isPresent()) {
@@ -23,11 +35,39 @@ public class UserService {
             existingUser.setWeight_kg(updatedUser.getWeight_kg());
             existingUser.setGoal(updatedUser.getGoal());
             existingUser.setGender(updatedUser.getGender());
-            return userRepository.save(existingUser);
+            String previousTimezone = existingUser.getTimezone();
+            existingUser.setTimezone(updatedUser.getTimezone());
+            User saved = userRepository.save(existingUser);
+            userDetailsService.evict(email);
+            if (!Objects.equals(previousTimezone, saved.getTimezone())) {
+                // Streak days are calendar days in the user's zone
+                streakService.rebuild(email);
+            }
+            eventPublisher.publishEvent(new UserDataChangedEvent(email, UserDataChangedEvent.DataType.PROFILE));
+            return saved;
         }
         return null; // Or throw exception
     }
 
+    /**
+     * The profile as loaded when the request was authenticated. Profile updates evict
+     * the cached principal, so the next request sees the new values. The password hash
+     * is left out; the result is sent to clients.
+     */
+    public User toUser(UserPrincipal principal) {
+        User user = new User();
+        user.setId(principal.getId());
+        user.setEmail(principal.getEmail());
+        user.setName(principal.getName());
+        user.setAge(principal.getAge());
+        user.setHeight_cm(principal.getHeightCm());
+        user.setWeight_kg(principal.getWeightKg());
+        user.setGoal(principal.getGoal());
+        user.setGender(principal.getGender());
+        user.setTimezone(principal.getTimezone());
+        return user;
+    }
+
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
     }
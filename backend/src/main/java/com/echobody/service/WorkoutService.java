@@ -1,21 +1,66 @@
 package com.echobody.service;
 
+import com.echobody.dto.BatchResult;
+import com.echobody.dto.CursorPage;
+import com.echobody.dto.KeysetCursor;
+import com.echobody.dto.ListQuery;
+import com.echobody.dto.WorkoutSummary;
 import com.echobody.model.Workout;
-import com.echobody.repository.WorkoutRepository;
+import com.echobody.repository.WorkoutStore;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class WorkoutService {
 
     @Autowired
-    private WorkoutRepository workoutRepository;
+    private WorkoutStore workoutStore;
 
-    public List<Workout> getUserWorkouts(String userId) {
-        return workoutRepository.findByUserIdOrderByDateDesc(userId);
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private PersonalRecordService personalRecordService;
+
+    @Autowired
+    private StreakService streakService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public List<WorkoutSummary> getUserWorkouts(String userId) {
+        return workoutStore.findByUser(userId);
+    }
+
+    public CursorPage<WorkoutSummary> getUserWorkouts(String userId, ListQuery query) {
+        KeysetCursor after = KeysetCursor.decode(query.getAfter());
+        if (after != null) {
+            return CursorPage.newerThan(workoutStore.findPageAfter(userId, query.fromTime(), query.toTime(),
+                    after.getDate(), after.idValue(), query.pageable(Sort.Direction.ASC, "date")),
+                    WorkoutService::cursorOf);
+        }
+        KeysetCursor before = KeysetCursor.decode(query.getBefore());
+        if (before != null) {
+            return CursorPage.olderThan(workoutStore.findPageBefore(userId, query.fromTime(), query.toTime(),
+                    before.getDate(), before.idValue(), query.pageable(Sort.Direction.DESC, "date")), true,
+                    WorkoutService::cursorOf);
+        }
+        return CursorPage.olderThan(workoutStore.findPage(userId, query.fromTime(), query.toTime(),
+                query.pageable(Sort.Direction.DESC, "date")), false, WorkoutService::cursorOf);
+    }
+
+    // The whole workout, notes included; empty unless it belongs to the user
+    public Optional<Workout> getWorkout(String id, String userId) {
+        return workoutStore.findById(id).filter(workout -> userId.equals(workout.getUserId()));
     }
 
     public Workout logWorkout(Workout workout, String userId) {
@@ -23,13 +68,54 @@ public class WorkoutService {
         if (workout.getDate() == null) {
             workout.setDate(LocalDateTime.now());
         }
-        return workoutRepository.save(workout);
+        Workout saved = workoutStore.insert(workout);
+        rollupService.workoutAdded(saved);
+        personalRecordService.workoutAdded(saved);
+        streakService.workoutAdded(saved);
+        changed(userId);
+        return saved;
+    }
+
+    /**
+     * Inserts one chunk of a batch upload with a single bulk write.
+     * Results are indexed by position in {@code workouts}.
+     */
+    public List<BatchResult.Item> logWorkouts(List<Workout> workouts, String userId) {
+        for (Workout workout : workouts) {
+            workout.setUserId(userId);
+            workout.setId(new ObjectId().toHexString());
+            if (workout.getDate() == null) {
+                workout.setDate(LocalDateTime.now());
+            }
+        }
+
+        Map<Integer, String> errors = workoutStore.insertAll(workouts);
+
+        List<BatchResult.Item> results = new ArrayList<>(workouts.size());
+        List<Workout> inserted = new ArrayList<>(workouts.size());
+        for (int i = 0; i < workouts.size(); i++) {
+            if (errors.containsKey(i)) {
+                results.add(BatchResult.Item.failed(i, errors.get(i)));
+            } else {
+                results.add(BatchResult.Item.created(i, workouts.get(i).getId()));
+                inserted.add(workouts.get(i));
+            }
+        }
+        rollupService.workoutsAdded(userId, inserted);
+        personalRecordService.workoutsAdded(inserted);
+        streakService.workoutsAdded(userId, inserted);
+        if (!inserted.isEmpty()) {
+            changed(userId);
+        }
+        return results;
     }
 
     public Workout updateWorkout(String id, Workout workout, String userId) {
-        return workoutRepository.findById(id)
+        return workoutStore.findById(id)
                 .map(existingWorkout -> {
                     if (existingWorkout.getUserId().equals(userId)) {
+                        int previousCalories = existingWorkout.getCaloriesBurned();
+                        String previousName = existingWorkout.getName();
                         existingWorkout.setName(workout.getName());
                         existingWorkout.setMuscleGroup(workout.getMuscleGroup());
                         existingWorkout.setSets(workout.getSets());
@@ -37,14 +123,33 @@ public class WorkoutService {
                         existingWorkout.setWeight(workout.getWeight());
                         existingWorkout.setCaloriesBurned(workout.getCaloriesBurned());
                         existingWorkout.setNotes(workout.getNotes());
-                        return workoutRepository.save(existingWorkout);
+                        Workout saved = workoutStore.update(existingWorkout);
+                        rollupService.workoutCaloriesChanged(saved, previousCalories);
+                        personalRecordService.workoutChanged(saved, previousName);
+                        changed(userId);
+                        return saved;
                     }
                     return null;
                 })
                 .orElse(null);
     }
 
-    public void deleteWorkout(String id) {
-        workoutRepository.deleteById(id);
+    // False when the user has no workout with this id
+    public boolean deleteWorkout(String id, String userId) {
+        return workoutStore.delete(id, userId).map(workout -> {
+            rollupService.workoutRemoved(workout);
+            personalRecordService.workoutRemoved(workout);
+            streakService.workoutRemoved(workout);
+            changed(userId);
+            return true;
+        }).orElse(false);
+    }
+
+    private void changed(String userId) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.DataType.WORKOUTS));
+    }
+
+    private static KeysetCursor cursorOf(WorkoutSummary entity) {
+        return new KeysetCursor(entity.getDate(), entity.getId());
     }
 }
@@ -3,7 +3,7 @@ package com.echobody;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.mongo.index-verification=off")
 class EchobodyApplicationTests {
 
 	@Test
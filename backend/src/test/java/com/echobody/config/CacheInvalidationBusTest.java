@@ -0,0 +1,44 @@
+package com.echobody.config;
+
+import com.echobody.service.UserDataChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheInvalidationBus bus = new CacheInvalidationBus(mock(MongoTemplate.class), eventPublisher,
+            meterRegistry, DataSize.ofMegabytes(1), 1000);
+
+    @Test
+    void otherNodesEntriesAreRepublishedAsRemoteEvents() {
+        bus.deliver(new Document("node", "another").append("userId", "user@example.com")
+                .append("type", "MEALS").append("at", new Date(System.currentTimeMillis() - 50)));
+
+        ArgumentCaptor<UserDataChangedEvent> event = ArgumentCaptor.forClass(UserDataChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("user@example.com", event.getValue().getUserId());
+        assertEquals(UserDataChangedEvent.DataType.MEALS, event.getValue().getType());
+        assertTrue(event.getValue().isRemote());
+        assertEquals(1, meterRegistry.get("cache.invalidation.lag").timer().count());
+    }
+
+    @Test
+    void markersAndUnknownTypesAreSkipped() {
+        bus.deliver(new Document("node", "another").append("at", new Date()));
+        bus.deliver(new Document("node", "another").append("userId", "user@example.com").append("type", "GOALS"));
+
+        verifyNoInteractions(eventPublisher);
+    }
+}
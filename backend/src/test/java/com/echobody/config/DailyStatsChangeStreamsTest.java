@@ -0,0 +1,184 @@
+package com.echobody.config;
+
+import com.echobody.model.Meal;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.UserDailyStats;
+import com.echobody.model.Workout;
+import com.echobody.repository.DocumentWorkoutStore;
+import com.echobody.repository.WorkoutRepository;
+import com.echobody.service.DailyStatsService;
+import com.echobody.service.DataVersionService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real single-node replica set, e.g.
+ * {@code docker run -d -p 27017:27017 mongo:7 --replSet rs0} then
+ * {@code docker exec <id> mongosh --eval "rs.initiate()"}, with
+ * {@code MONGO_REPLICA_SET_URI=mongodb://localhost:27017/?directConnection=true}.
+ */
+@EnabledIfEnvironmentVariable(named = "MONGO_REPLICA_SET_URI", matches = ".+")
+class DailyStatsChangeStreamsTest {
+
+    private static final String USER = "stats@example.com";
+    private static final LocalDateTime NOON = LocalDate.now().atTime(12, 0);
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private DailyStatsService dailyStatsService;
+    private DataVersionService dataVersionService;
+    private DocumentWorkoutStore workoutStore;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create(System.getenv("MONGO_REPLICA_SET_URI"));
+        mongoTemplate = new MongoTemplate(client, "echobody_daily_stats_test");
+        mongoTemplate.getDb().drop();
+
+        workoutStore = new DocumentWorkoutStore(
+                new MongoRepositoryFactory(mongoTemplate).getRepository(WorkoutRepository.class), mongoTemplate);
+        dailyStatsService = new DailyStatsService();
+        ReflectionTestUtils.setField(dailyStatsService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(dailyStatsService, "workoutStore", workoutStore);
+        dataVersionService = new DataVersionService();
+        ReflectionTestUtils.setField(dataVersionService, "mongoTemplate", mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void buildsThenFollowsChangesAndResumesAfterRestart() throws Exception {
+        workoutStore.insert(workout(200));
+        Meal meal = mongoTemplate.insert(meal());
+
+        DailyStatsChangeStreams streams = consumer();
+        streams.start();
+        try {
+            // First start has no resume token, so the existing data is built in
+            await(row -> row.getWorkouts() == 1 && row.getMeals() == 1);
+
+            workoutStore.insert(workout(300));
+            UserDailyStats followed = await(row -> row.getWorkouts() == 2);
+            assertEquals(500, followed.getCaloriesBurned());
+            assertEquals(10 + 4 + 10 + 6, followed.getWorkoutPoints());
+
+            mongoTemplate.remove(meal);
+            await(row -> row.getMeals() == 0);
+        } finally {
+            streams.stop();
+        }
+
+        // Written while nothing is listening; picked up from the saved token
+        mongoTemplate.insert(new MoodEntry(USER, "Good", 6, null, NOON));
+        DailyStatsChangeStreams restarted = consumer();
+        restarted.start();
+        try {
+            UserDailyStats resumed = await(row -> row.getMoodEntries() == 1);
+            assertEquals(6.0, resumed.getAverageEnergy());
+            assertEquals(2, resumed.getWorkouts());
+        } finally {
+            restarted.stop();
+        }
+
+        // Re-applying is harmless
+        dailyStatsService.applyWorkouts(USER, NOON.toLocalDate());
+        assertEquals(2, today().getWorkouts());
+        assertEquals(1, dailyStatsService.getTrend(USER, null, null).size());
+    }
+
+    @Test
+    void onlyTheLeaseHolderConsumesAndRebuildsKeepOtherRows() throws Exception {
+        workoutStore.insert(workout(200));
+        mongoTemplate.insert(meal());
+
+        DailyStatsChangeStreams first = consumer();
+        DailyStatsChangeStreams second = consumer();
+        first.start();
+        try {
+            await(row -> row.getWorkouts() == 1 && row.getMeals() == 1);
+            second.start();
+            Thread.sleep(1500);
+            assertTrue(first.isConsuming());
+            assertFalse(second.isConsuming());
+
+            // A rebuild of one source leaves the others' fields and the row in place
+            mongoTemplate.getCollection("meals").deleteMany(new Document());
+            dailyStatsService.rebuildMeals();
+            UserDailyStats rebuilt = today();
+            assertEquals(0, rebuilt.getMeals());
+            assertEquals(1, rebuilt.getWorkouts());
+
+            first.stop();
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (!second.isConsuming() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(second.isConsuming());
+            workoutStore.insert(workout(300));
+            await(row -> row.getWorkouts() == 2);
+        } finally {
+            first.stop();
+            second.stop();
+        }
+    }
+
+    private DailyStatsChangeStreams consumer() {
+        return new DailyStatsChangeStreams(mongoTemplate, dailyStatsService, dataVersionService, workoutStore,
+                Duration.ofSeconds(3));
+    }
+
+    private UserDailyStats today() {
+        return mongoTemplate.findById(USER + "|" + NOON.toLocalDate(), UserDailyStats.class);
+    }
+
+    private UserDailyStats await(Predicate<UserDailyStats> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            UserDailyStats row = today();
+            if (row != null && condition.test(row)) {
+                return row;
+            }
+            Thread.sleep(50);
+        }
+        fail("Daily stats did not catch up: " + today());
+        return null;
+    }
+
+    private static Workout workout(int calories) {
+        Workout workout = new Workout();
+        workout.setUserId(USER);
+        workout.setName("Row");
+        workout.setCaloriesBurned(calories);
+        workout.setDate(NOON);
+        return workout;
+    }
+
+    private static Meal meal() {
+        Meal meal = new Meal();
+        meal.setUserId(USER);
+        meal.setTitle("Oats");
+        meal.setCalories(350);
+        meal.setProtein(12);
+        meal.setDateTime(NOON);
+        return meal;
+    }
+}
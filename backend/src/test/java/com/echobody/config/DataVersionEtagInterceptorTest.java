@@ -0,0 +1,89 @@
+package com.echobody.config;
+
+import com.echobody.model.DataVersion;
+import com.echobody.security.UserPrincipal;
+import com.echobody.service.DataVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DataVersionEtagInterceptorTest {
+
+    private final DataVersionService dataVersionService = mock(DataVersionService.class);
+    private final DataVersionEtagInterceptor interceptor = new DataVersionEtagInterceptor(dataVersionService);
+
+    @BeforeEach
+    void setUp() {
+        UserPrincipal principal = new UserPrincipal("ada@example.com", "hash");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        DataVersion version = new DataVersion();
+        version.setEpoch("e1");
+        version.setVersion(7);
+        when(dataVersionService.current("ada@example.com")).thenReturn(version);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tagsResponseAndAnswersMatchingPollWith304() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(null), first, new Object()));
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(get("\"other\", " + etag), second, new Object()));
+        assertEquals(304, second.getStatus());
+    }
+
+    @Test
+    void newVersionMissesTheCachedTag() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        interceptor.preHandle(get(null), first, new Object());
+
+        DataVersion bumped = new DataVersion();
+        bumped.setEpoch("e1");
+        bumped.setVersion(8);
+        when(dataVersionService.current("ada@example.com")).thenReturn(bumped);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(first.getHeader("ETag")), second, new Object()));
+        assertNotEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+    }
+
+    @Test
+    void tagRollsOverAtTheUsersMidnight() {
+        DataVersion version = new DataVersion();
+        version.setEpoch("e1");
+        version.setVersion(7);
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        Instant beforeMidnight = ZonedDateTime.of(2024, 3, 1, 23, 30, 0, 0, tokyo).toInstant();
+
+        assertNotEquals(DataVersionEtagInterceptor.etagOf(version, tokyo, beforeMidnight),
+                DataVersionEtagInterceptor.etagOf(version, tokyo, beforeMidnight.plus(Duration.ofHours(1))));
+    }
+
+    private static MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard/summary");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package com.echobody.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoDocumentMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MongoDocumentMetrics metrics = new MongoDocumentMetrics(meterRegistry);
+
+    @Test
+    void countsCursorBatchesIntoTheCurrentRequest() {
+        MongoDocumentMetrics.startRequest();
+        metrics.commandSucceeded(succeeded("find", cursorReply("firstBatch", 3)));
+        metrics.commandSucceeded(succeeded("getMore", cursorReply("nextBatch", 2)));
+        metrics.commandSucceeded(succeeded("insert", new BsonDocument("n", new BsonInt32(1))));
+
+        assertEquals(5, MongoDocumentMetrics.finishRequest());
+        assertEquals(3, meterRegistry.get("mongodb.driver.documents.returned").tag("command", "find")
+                .summary().totalAmount());
+        assertTrue(meterRegistry.find("mongodb.driver.documents.returned").tag("command", "insert")
+                .summaries().isEmpty());
+    }
+
+    @Test
+    void ignoresThreadsOutsideARequest() {
+        metrics.commandSucceeded(succeeded("find", cursorReply("firstBatch", 4)));
+        assertEquals(-1, MongoDocumentMetrics.finishRequest());
+    }
+
+    @Test
+    void propagatedTasksCountTowardTheSubmittingRequest() throws Exception {
+        MongoDocumentMetrics.startRequest();
+        Thread worker = new Thread(MongoDocumentMetrics.propagate(
+                () -> metrics.commandSucceeded(succeeded("find", cursorReply("firstBatch", 4)))));
+        worker.start();
+        worker.join();
+        metrics.commandSucceeded(succeeded("find", cursorReply("firstBatch", 1)));
+
+        assertEquals(5, MongoDocumentMetrics.finishRequest());
+        assertEquals(1, meterRegistry.find("mongodb.driver.documents.returned").summaries().size());
+    }
+
+    private static BsonDocument cursorReply(String batch, int size) {
+        BsonArray documents = new BsonArray();
+        for (int i = 0; i < size; i++) {
+            documents.add(new BsonDocument("_id", new BsonInt32(i)));
+        }
+        return new BsonDocument("cursor", new BsonDocument(batch, documents)).append("ok", new BsonInt32(1));
+    }
+
+    private static CommandSucceededEvent succeeded(String command, BsonDocument reply) {
+        ConnectionDescription connection = new ConnectionDescription(
+                new ServerId(new ClusterId(), new ServerAddress()));
+        return new CommandSucceededEvent(null, 1L, 1, connection, "echobodydb", command, reply, 1_000L);
+    }
+}
@@ -0,0 +1,34 @@
+package com.echobody.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncoderMigrationTest {
+
+    private final PasswordEncoder encoder = new SecurityConfig(null, null, null, null)
+            .passwordEncoder(new SimpleMeterRegistry(), 5);
+
+    @Test
+    void storesPrefixedHashesAtConfiguredCost() {
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$05$"), hash);
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void legacyAndWeakerHashesMatchAndAreMarkedForRehash() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String weaker = "{bcrypt}" + legacy;
+
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertTrue(encoder.matches("secret", weaker));
+        assertTrue(encoder.upgradeEncoding(weaker));
+    }
+}
@@ -0,0 +1,49 @@
+package com.echobody.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 3, 14, 9, 30);
+
+    @Test
+    void cursorRoundTrips() {
+        KeysetCursor cursor = new KeysetCursor(T, "65f2c0ffee0123456789abcd");
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> KeysetCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    void firstPageOnlyPointsOlder() {
+        List<KeysetCursor> rows = List.of(new KeysetCursor(T, "b"), new KeysetCursor(T.minusDays(1), "a"));
+        CursorPage<KeysetCursor> page = CursorPage.olderThan(new SliceImpl<>(rows, PageRequest.of(0, 2), true),
+                false, row -> row);
+
+        assertEquals(rows, page.getItems());
+        assertEquals(rows.get(1).encode(), page.getNextCursor());
+        assertNull(page.getPrevCursor());
+    }
+
+    @Test
+    void newerPageIsReturnedNewestFirst() {
+        List<KeysetCursor> ascending = List.of(new KeysetCursor(T, "a"), new KeysetCursor(T.plusDays(1), "b"));
+        CursorPage<KeysetCursor> page = CursorPage.newerThan(new SliceImpl<>(ascending, PageRequest.of(0, 2), false),
+                row -> row);
+
+        assertEquals(List.of(ascending.get(1), ascending.get(0)), page.getItems());
+        assertEquals(ascending.get(0).encode(), page.getNextCursor());
+        assertNull(page.getPrevCursor());
+    }
+}
@@ -0,0 +1,110 @@
+package com.echobody.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives concurrent GET requests against a running backend and prints throughput and
+ * latency percentiles. Start the app once with {@code spring.threads.virtual.enabled=false}
+ * and once with {@code true} (Java 21+), or compare a servlet endpoint with its reactive
+ * variant under /api/reactive. All clients share one token, so start the app with
+ * {@code app.rate-limit.enabled=false}:
+ *
+ * <pre>
+ * java -cp target/test-classes com.echobody.load.DashboardLoadDriver \
+ *     http://localhost:8081 &lt;jwt&gt; 500 30 /api/reactive/dashboard/summary
+ * </pre>
+ *
+ * Arguments: base URL, bearer token, concurrent clients (default 200), seconds (default 30),
+ * path (default /api/dashboard/summary).
+ */
+public class DashboardLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: DashboardLoadDriver <baseUrl> <token> [clients] [seconds] [path]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        String token = args[1];
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        String path = args.length > 4 ? args[4] : "/api/dashboard/summary";
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        // Short warm-up so JIT and connection setup stay out of the numbers
+        run(client, request, Math.min(clients, 20), 5);
+
+        long started = System.nanoTime();
+        Result result = run(client, request, clients, seconds);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("path=%s clients=%d requests=%d errors=%d throughput=%.1f req/s%n",
+                path, clients, latencies.length, result.errors(), latencies.length / elapsed);
+        System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int clients, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<List<Long>>> workers = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            workers.add(pool.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            latencies.add(System.nanoTime() - start);
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception ex) {
+                        errors.incrementAndGet();
+                    }
+                }
+                return latencies;
+            }));
+        }
+
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> worker : workers) {
+            all.addAll(worker.get());
+        }
+        pool.shutdown();
+        return new Result(all.stream().mapToLong(Long::longValue).toArray(), errors.get());
+    }
+
+    static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private record Result(long[] latencies, int errors) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.echobody.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Floods /api/auth/login while steady clients poll /api/dashboard/summary, then prints
+ * login throughput (accepted vs 429) and the API's latency percentiles during the storm.
+ * Run it before and after tuning {@code app.security.login.*} or the BCrypt cost:
+ *
+ * <pre>
+ * java -cp target/test-classes com.echobody.load.LoginStormDriver \
+ *     http://localhost:8081 &lt;jwt&gt; user@example.com password 400 50 30
+ * </pre>
+ *
+ * Arguments: base URL, bearer token for the API clients, login email and password,
+ * login clients (default 400), API clients (default 50), seconds (default 30).
+ */
+public class LoginStormDriver {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: LoginStormDriver <baseUrl> <token> <email> <password>"
+                    + " [loginClients] [apiClients] [seconds]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int loginClients = args.length > 4 ? Integer.parseInt(args[4]) : 400;
+        int apiClients = args.length > 5 ? Integer.parseInt(args[5]) : 50;
+        int seconds = args.length > 6 ? Integer.parseInt(args[6]) : 30;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + args[2] + "\",\"password\":\"" + args[3] + "\"}"))
+                .build();
+        HttpRequest api = HttpRequest.newBuilder(URI.create(baseUrl + "/api/dashboard/summary"))
+                .header("Authorization", "Bearer " + args[1])
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicInteger loginsOk = new AtomicInteger();
+        AtomicInteger loginsRejected = new AtomicInteger();
+        AtomicInteger loginErrors = new AtomicInteger();
+        AtomicInteger apiErrors = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> apiLatencies = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(loginClients + apiClients);
+        long started = System.nanoTime();
+        for (int i = 0; i < loginClients; i++) {
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        int status = client.send(login, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status == 200) {
+                            loginsOk.incrementAndGet();
+                        } else if (status == 429) {
+                            loginsRejected.incrementAndGet();
+                        } else {
+                            loginErrors.incrementAndGet();
+                        }
+                    } catch (Exception ex) {
+                        loginErrors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < apiClients; i++) {
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        if (client.send(api, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            apiLatencies.add(System.nanoTime() - start);
+                        } else {
+                            apiErrors.incrementAndGet();
+                        }
+                    } catch (Exception ex) {
+                        apiErrors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        List<Long> collected = new ArrayList<>(apiLatencies);
+        long[] latencies = collected.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(latencies);
+        System.out.printf("logins: ok=%d (%.1f/s) rejected=%d errors=%d%n",
+                loginsOk.get(), loginsOk.get() / elapsed, loginsRejected.get(), loginErrors.get());
+        System.out.printf("api: requests=%d errors=%d throughput=%.1f req/s p50=%.1f p99=%.1f ms%n",
+                latencies.length, apiErrors.get(), latencies.length / elapsed,
+                DashboardLoadDriver.percentile(latencies, 50), DashboardLoadDriver.percentile(latencies, 99));
+    }
+}
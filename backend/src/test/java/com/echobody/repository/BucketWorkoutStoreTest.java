@@ -0,0 +1,176 @@
+package com.echobody.repository;
+
+import com.echobody.dto.WorkoutSummary;
+import com.echobody.model.Workout;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+class BucketWorkoutStoreTest {
+
+    private static final String USER = "user@example.com";
+
+    private final MongoTemplate template = mock(MongoTemplate.class);
+    private final BucketWorkoutStore store = new BucketWorkoutStore(template, BucketWorkoutStore.Period.WEEK);
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        context.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(template.getConverter()).thenReturn(converter);
+    }
+
+    @Test
+    void bucketsStartOnMondayOrTheFirstOfTheMonth() {
+        assertEquals(LocalDate.of(2024, 1, 8), store.periodStart(LocalDate.of(2024, 1, 14)));
+        assertEquals(LocalDate.of(2024, 1, 15), store.periodStart(LocalDate.of(2024, 1, 15)));
+
+        BucketWorkoutStore monthly = new BucketWorkoutStore(template, BucketWorkoutStore.Period.MONTH);
+        assertEquals(LocalDate.of(2024, 2, 1), monthly.periodStart(LocalDate.of(2024, 2, 29)));
+    }
+
+    @Test
+    void unwindsOverlappingBucketsAheadOfTheWorkoutPipeline() {
+        Aggregation pipeline = newAggregation(
+                match(Criteria.where("userId").is(USER)),
+                group().count().as("count"));
+
+        List<Document> stages = store.over(USER, LocalDate.of(2024, 1, 10), null, pipeline)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertEquals(5, stages.size());
+        Document buckets = stages.get(0).get("$match", Document.class);
+        assertEquals(USER, buckets.get("userId"));
+        assertTrue(buckets.get("end", Document.class).containsKey("$gt"));
+        assertFalse(buckets.containsKey("start"));
+        assertEquals("$entries", stages.get(1).get("$unwind"));
+        assertEquals("$entries", stages.get(2).get("$replaceRoot", Document.class).get("newRoot"));
+        assertEquals(pipeline.toPipeline(Aggregation.DEFAULT_CONTEXT), stages.subList(3, 5));
+    }
+
+    @Test
+    void pagesReadOnlyTheSummaryFields() {
+        ArgumentCaptor<Aggregation> pipeline = ArgumentCaptor.forClass(Aggregation.class);
+        when(template.aggregate(pipeline.capture(), eq(BucketWorkoutStore.COLLECTION), eq(WorkoutSummary.class)))
+                .thenReturn(new AggregationResults<>(List.of(new WorkoutSummary(), new WorkoutSummary()),
+                        new Document()));
+
+        Slice<WorkoutSummary> page = store.findPage(USER, LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 2, 1, 0, 0), PageRequest.of(0, 1));
+
+        assertTrue(page.hasNext());
+        assertEquals(1, page.getContent().size());
+        List<Document> stages = pipeline.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(2L, ((Number) stages.get(stages.size() - 2).get("$limit")).longValue());
+        Document fields = stages.get(stages.size() - 1).get("$project", Document.class);
+        assertTrue(fields.containsKey("date"));
+        assertFalse(fields.containsKey("notes"));
+        assertFalse(fields.containsKey("userId"));
+    }
+
+    @Test
+    void batchWritesOneUpsertPerBucket() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, BucketWorkoutStore.COLLECTION)).thenReturn(bulk);
+
+        Map<Integer, String> errors = store.insertAll(List.of(
+                workout(LocalDateTime.of(2024, 1, 8, 7, 0)),
+                workout(LocalDateTime.of(2024, 1, 16, 7, 0)),
+                workout(LocalDateTime.of(2024, 1, 14, 21, 0))));
+
+        assertTrue(errors.isEmpty());
+        ArgumentCaptor<Query> buckets = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> updates = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(bulk, times(2)).upsert(buckets.capture(), updates.capture());
+        verify(bulk).execute();
+        assertEquals(List.of(USER + "|2024-01-08", USER + "|2024-01-15"), buckets.getAllValues().stream()
+                .map(query -> query.getQueryObject().get("_id"))
+                .toList());
+
+        // Append the new entries, sort them, then recompute the sums
+        List<Document> stages = ((AggregationUpdate) updates.getAllValues().get(0))
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(3, stages.size());
+        Document entries = stages.get(0).get("$set", Document.class).get("entries", Document.class);
+        List<?> appended = entries.getList("$concatArrays", Object.class);
+        Document fresh = ((Document) appended.get(1)).get("$filter", Document.class);
+        assertEquals(2, fresh.get("input", Document.class).getList("$literal", Document.class).size());
+        assertTrue(stages.get(1).get("$set", Document.class).get("entries", Document.class).containsKey("$sortArray"));
+        assertEquals(List.of("count", "caloriesBurned", "maxWeights"),
+                List.copyOf(stages.get(2).get("$set", Document.class).keySet()));
+    }
+
+    @Test
+    void deleteDropsTheBucketOnceEmpty() {
+        Workout workout = workout(LocalDateTime.of(2024, 1, 9, 7, 0));
+        when(template.aggregate(any(Aggregation.class), eq(BucketWorkoutStore.COLLECTION), eq(Workout.class)))
+                .thenReturn(new AggregationResults<>(List.of(workout), new Document()));
+        when(template.updateFirst(any(Query.class), any(AggregationUpdate.class), eq(BucketWorkoutStore.COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertEquals(Optional.of(workout), store.delete(workout.getId(), USER));
+
+        ArgumentCaptor<Query> updated = ArgumentCaptor.forClass(Query.class);
+        verify(template).updateFirst(updated.capture(), any(AggregationUpdate.class),
+                eq(BucketWorkoutStore.COLLECTION));
+        assertEquals(new ObjectId(workout.getId()), updated.getValue().getQueryObject().get("entries._id"));
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(template).remove(removed.capture(), eq(BucketWorkoutStore.COLLECTION));
+        assertEquals(new Document("_id", USER + "|2024-01-08").append("count", 0), removed.getValue().getQueryObject());
+    }
+
+    @Test
+    void deleteLeavesOtherUsersWorkoutsAlone() {
+        Workout workout = workout(LocalDateTime.of(2024, 1, 9, 7, 0));
+        when(template.aggregate(any(Aggregation.class), eq(BucketWorkoutStore.COLLECTION), eq(Workout.class)))
+                .thenReturn(new AggregationResults<>(List.of(workout), new Document()));
+
+        assertEquals(Optional.empty(), store.delete(workout.getId(), "someone@example.com"));
+
+        verify(template, never()).updateFirst(any(Query.class), any(AggregationUpdate.class), anyString());
+    }
+
+    private static Workout workout(LocalDateTime date) {
+        Workout workout = new Workout();
+        workout.setId(new ObjectId().toHexString());
+        workout.setUserId(USER);
+        workout.setName("Squat");
+        workout.setWeight(100);
+        workout.setCaloriesBurned(300);
+        workout.setDate(date);
+        return workout;
+    }
+}
@@ -0,0 +1,55 @@
+package com.echobody.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private JwtTokenProvider provider;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecretString",
+                "TestOnlySecretThatIsLongEnoughForHs512SigningInUnitTests_0123456789abcdefghijklmnop");
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", 100L);
+        ReflectionTestUtils.setField(provider, "meterRegistry", meterRegistry);
+        provider.init();
+    }
+
+    @Test
+    void verifiesIssuedTokenAndReusesTheResult() {
+        String jwt = issue("ada@example.com");
+
+        VerifiedToken first = provider.verify(jwt).orElseThrow();
+        VerifiedToken second = provider.verify(jwt).orElseThrow();
+
+        assertEquals("ada@example.com", first.getSubject());
+        assertTrue(first.getExpiresAt().isAfter(Instant.now()));
+        assertSame(first, second);
+        assertEquals(1, meterRegistry.get("jwt.verify").tag("outcome", "verified").timer().count());
+        assertEquals(1, meterRegistry.get("jwt.verify").tag("outcome", "cached").timer().count());
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String jwt = issue("ada@example.com");
+        String tampered = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(provider.verify(tampered).isEmpty());
+        assertTrue(provider.verify("not.a.jwt").isEmpty());
+    }
+
+    private String issue(String email) {
+        UserPrincipal principal = new UserPrincipal(email, "hash");
+        return provider.generateToken(new UsernamePasswordAuthenticationToken(principal, null));
+    }
+}
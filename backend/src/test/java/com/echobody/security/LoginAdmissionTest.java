@@ -0,0 +1,53 @@
+package com.echobody.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAdmissionTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginAdmission admission = new LoginAdmission(meterRegistry, 1, 1, Duration.ofSeconds(2));
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        admission.shutdown();
+    }
+
+    @Test
+    void rejectsBeyondPoolAndQueue() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<String> first = admission.submit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = admission.submit(() -> "queued");
+
+        assertThrows(RejectedExecutionException.class, () -> admission.submit(() -> "rejected"));
+        assertEquals(1, meterRegistry.get("auth.login.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.echobody.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(meterRegistry, true, Map.of(
+            RateLimitFilter.Tier.AUTH, new RateLimitFilter.Limit(2, Duration.ofMinutes(1)),
+            RateLimitFilter.Tier.ANALYTICS, new RateLimitFilter.Limit(2, Duration.ofMinutes(1)),
+            RateLimitFilter.Tier.API, new RateLimitFilter.Limit(5, Duration.ofMinutes(1))), 1000, now::get);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void analyticsBudgetIsPerUserAndRefills() throws Exception {
+        signIn("a@example.com");
+        assertEquals(200, get("/api/progress/trend").getStatus());
+        assertEquals(200, get("/api/progress/trend").getStatus());
+        MockHttpServletResponse limited = get("/api/progress/records");
+        assertEquals(429, limited.getStatus());
+        assertEquals("30", limited.getHeader("Retry-After"));
+        // Cheap endpoints and other users have budgets of their own
+        assertEquals(200, get("/api/workouts").getStatus());
+        signIn("b@example.com");
+        assertEquals(200, get("/api/progress/trend").getStatus());
+
+        signIn("a@example.com");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(200, get("/api/progress/trend").getStatus());
+        assertEquals(1.0, meterRegistry.get("http.rate_limited").tag("tier", "analytics").counter().count());
+    }
+
+    @Test
+    void authIsLimitedPerAddressEvenWhenSignedIn() throws Exception {
+        signIn("a@example.com");
+        get("/api/auth/login");
+        get("/api/auth/login");
+        assertEquals(429, get("/api/auth/register").getStatus());
+        assertEquals(200, get("/actuator/prometheus").getStatus());
+
+        assertEquals(RateLimitFilter.Tier.ANALYTICS, RateLimitFilter.tierOf("/api/reactive/progress/summary"));
+        assertEquals(RateLimitFilter.Tier.API, RateLimitFilter.tierOf("/api/mood"));
+    }
+
+    @Test
+    void currentUserLookupsDoNotSpendTheLoginBudget() throws Exception {
+        signIn("a@example.com");
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, get("/api/auth/me").getStatus());
+        }
+        // Another user behind the same address can still sign in
+        SecurityContextHolder.clearContext();
+        assertEquals(200, get("/api/auth/login").getStatus());
+        assertEquals(RateLimitFilter.Tier.API, RateLimitFilter.tierOf("/api/auth/me"));
+    }
+
+    @Test
+    void revalidationsAnsweredNotModifiedSpendTheApiBudget() throws Exception {
+        signIn("a@example.com");
+        for (int i = 0; i < 4; i++) {
+            assertEquals(304, revalidate("/api/progress/trend").getStatus());
+        }
+        assertEquals(200, get("/api/progress/trend").getStatus());
+        assertEquals(200, get("/api/progress/trend").getStatus());
+        // Four 304s and nothing else have used four of the five API tokens
+        assertEquals(200, get("/api/workouts").getStatus());
+        assertEquals(429, get("/api/workouts").getStatus());
+    }
+
+    private MockHttpServletResponse get(String path) throws Exception {
+        return send(path, new MockFilterChain());
+    }
+
+    // Answered 304 further down the chain, as the ETag check does for an unchanged poll
+    private MockHttpServletResponse revalidate(String path) throws Exception {
+        return send(path, (request, response) -> ((HttpServletResponse) response).setStatus(304));
+    }
+
+    private MockHttpServletResponse send(String path, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("203.0.113.7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static void signIn(String email) {
+        UserPrincipal principal = new UserPrincipal(email, "");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
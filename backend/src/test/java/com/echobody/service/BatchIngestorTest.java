@@ -0,0 +1,77 @@
+package com.echobody.service;
+
+import com.echobody.dto.BatchResult;
+import com.echobody.model.Meal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchIngestorTest {
+
+    private BatchIngestor ingestor;
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ingestor = new BatchIngestor();
+        ReflectionTestUtils.setField(ingestor, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(ingestor, "chunkSize", 2);
+        ReflectionTestUtils.setField(ingestor, "maxItems", 4);
+    }
+
+    @Test
+    void writesJsonArrayInChunks() throws Exception {
+        BatchResult result = ingest("[{\"title\":\"a\"},{\"title\":\"b\"},{\"title\":\"c\"}]");
+
+        assertEquals(3, result.getAccepted());
+        assertEquals(List.of(2, 1), chunkSizes);
+        assertEquals(List.of("a", "b", "c"), ids(result));
+    }
+
+    @Test
+    void reportsBadItemsAndKeepsGoing() throws Exception {
+        BatchResult result = ingest("{\"title\":\"a\"}\n{\"calories\":\"lots\"}\n{\"title\":\"c\"}\n");
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(1, result.getFailed());
+        assertNotNull(result.getItems().get(1).getError());
+        assertEquals("c", result.getItems().get(2).getId());
+    }
+
+    @Test
+    void stopsAtItemLimit() throws Exception {
+        String body = IntStream.range(0, 6).mapToObj(i -> "{\"title\":\"m" + i + "\"}")
+                .collect(Collectors.joining("\n"));
+
+        BatchResult result = ingest(body);
+
+        assertEquals(4, result.getAccepted());
+        assertEquals(1, result.getFailed());
+        assertEquals(4, result.getItems().get(4).getIndex());
+    }
+
+    private BatchResult ingest(String body) throws Exception {
+        return ingestor.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), Meal.class, chunk -> {
+            chunkSizes.add(chunk.size());
+            List<BatchResult.Item> items = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                items.add(BatchResult.Item.created(i, chunk.get(i).getTitle()));
+            }
+            return items;
+        });
+    }
+
+    private static List<String> ids(BatchResult result) {
+        return result.getItems().stream().map(BatchResult.Item::getId).collect(Collectors.toList());
+    }
+}
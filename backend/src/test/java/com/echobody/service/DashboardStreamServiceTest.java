@@ -0,0 +1,69 @@
+package com.echobody.service;
+
+import com.echobody.dto.DashboardSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DashboardStreamServiceTest {
+
+    private static final String USER = "user@example.com";
+
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DashboardStreamService service = new DashboardStreamService(dashboardService, new ObjectMapper(),
+            meterRegistry, Duration.ofHours(1));
+
+    @Test
+    void sendsTheSummaryThenOnlyChangedFields() throws InterruptedException {
+        when(dashboardService.getSummary(USER)).thenReturn(summary(3, 200), summary(4, 200));
+        List<ServerSentEvent<Object>> events = new CopyOnWriteArrayList<>();
+
+        Disposable connection = service.stream(USER).subscribe(events::add);
+        await(events, 1);
+        assertEquals(1.0, meterRegistry.get("dashboard.streams").gauge().value());
+
+        service.onUserDataChanged(new UserDataChangedEvent(USER, UserDataChangedEvent.DataType.WORKOUTS));
+        await(events, 2);
+        connection.dispose();
+
+        assertEquals("summary", events.get(0).event());
+        assertEquals(3L, ((Map<?, ?>) events.get(0).data()).get("workoutsThisWeek"));
+        assertEquals(200, ((Map<?, ?>) events.get(0).data()).get("caloriesToday"));
+        assertEquals("delta", events.get(1).event());
+        assertEquals(Map.of("workoutsThisWeek", 4L), events.get(1).data());
+        assertEquals(0.0, meterRegistry.get("dashboard.streams").gauge().value());
+    }
+
+    @Test
+    void writesByUsersWithoutStreamsCostNothing() {
+        service.onUserDataChanged(new UserDataChangedEvent(USER, UserDataChangedEvent.DataType.MEALS));
+
+        verifyNoInteractions(dashboardService);
+    }
+
+    private static DashboardSummary summary(long workoutsThisWeek, int caloriesToday) {
+        DashboardSummary summary = new DashboardSummary();
+        summary.setWorkoutsThisWeek(workoutsThisWeek);
+        summary.setCaloriesToday(caloriesToday);
+        return summary;
+    }
+
+    private static void await(List<?> events, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (events.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, events.size());
+    }
+}
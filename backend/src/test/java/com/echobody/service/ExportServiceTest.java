@@ -0,0 +1,179 @@
+package com.echobody.service;
+
+import com.echobody.model.Meal;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.Workout;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 7, 30);
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService();
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    }
+
+    @Test
+    void writesOneTaggedJsonObjectPerLine() throws Exception {
+        String out = export(ExportService.Format.NDJSON, false, () -> workouts(2), () -> Stream.of(meal()),
+                Stream::empty);
+
+        String[] lines = out.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"type\":\"workout\",\"data\":{\"id\":\"w0\""));
+        assertTrue(lines[2].startsWith("{\"type\":\"meal\""));
+        assertTrue(lines[2].contains("\"dateTime\":\"2024-01-01T07:30:00\""));
+    }
+
+    @Test
+    void writesCsvWithQuotedFields() throws Exception {
+        MoodEntry mood = new MoodEntry();
+        mood.setId("m1");
+        mood.setMood("ok");
+        mood.setNotes("tired, but \"fine\"");
+
+        String out = export(ExportService.Format.CSV, false, Stream::empty, Stream::empty, () -> Stream.of(mood));
+
+        String[] lines = out.split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("type,id,date,name,"));
+        assertTrue(lines[1].startsWith("mood,m1,"));
+        assertTrue(lines[1].endsWith(",ok,0,\"tired, but \"\"fine\"\"\""), lines[1]);
+    }
+
+    @Test
+    void csvKeepsFormulaLikeTextAsText() throws Exception {
+        Workout workout = new Workout();
+        workout.setId("w1");
+        workout.setName("=HYPERLINK(\"http://example.com\")");
+        workout.setNotes("-5 kg, felt good");
+
+        String out = export(ExportService.Format.CSV, false, () -> Stream.of(workout), Stream::empty, Stream::empty);
+
+        String row = out.split("\r\n")[1];
+        assertTrue(row.startsWith("workout,w1,,\"'=HYPERLINK(\"\"http://example.com\"\")\","), row);
+        assertTrue(row.endsWith(",\"'-5 kg, felt good\""), row);
+    }
+
+    @Test
+    void ndjsonFlushesOncePerSectionNotPerRow() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+        exportService.write(out, ExportService.Format.NDJSON, false, () -> workouts(100), Stream::empty,
+                Stream::empty);
+        assertTrue(flushes.get() <= 4, "flushed " + flushes.get() + " times");
+    }
+
+    @Test
+    void gzipOutputRoundTrips() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.write(out, ExportService.Format.NDJSON, true, () -> workouts(3), Stream::empty, Stream::empty);
+
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(3, text.split("\n").length);
+    }
+
+    @Test
+    void closesEachSourceStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        export(ExportService.Format.CSV, false, () -> workouts(1).onClose(() -> closed.set(true)), Stream::empty,
+                Stream::empty);
+        assertTrue(closed.get());
+    }
+
+    /**
+     * Peak heap while exporting 100 vs 1,000,000 generated workouts into a discarding
+     * sink. Excluded from the default build; run with {@code mvn test -Dgroups=benchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void heapStaysFlatAsHistoryGrows() throws Exception {
+        long small = peakHeapDuringExport(100);
+        long large = peakHeapDuringExport(1_000_000);
+        System.out.printf("Export peak heap above baseline: 100 rows = %d KB, 1,000,000 rows = %d KB%n",
+                small / 1024, large / 1024);
+
+        // A materialized list of a million workouts alone needs a few hundred MB
+        assertTrue(large < small + 64L * 1024 * 1024, "Heap grew with history size: " + large / 1024 + " KB");
+    }
+
+    private long peakHeapDuringExport(int rows) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        long[] peak = {0};
+
+        Supplier<Stream<Workout>> source = () -> workouts(rows).peek(w -> {
+            if (Long.parseLong(w.getId().substring(1)) % 10_000 == 0) {
+                peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+            }
+        });
+        exportService.write(OutputStream.nullOutputStream(), ExportService.Format.NDJSON, true, source,
+                Stream::empty, Stream::empty);
+        return Math.max(peak[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+    }
+
+    private String export(ExportService.Format format, boolean gzip, Supplier<Stream<Workout>> workouts,
+            Supplier<Stream<Meal>> meals, Supplier<Stream<MoodEntry>> moods) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.write(out, format, gzip, workouts, meals, moods);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // Generated lazily, like documents coming off a cursor
+    private static Stream<Workout> workouts(long count) {
+        return LongStream.range(0, count).mapToObj(i -> {
+            Workout workout = new Workout();
+            workout.setId("w" + i);
+            workout.setUserId("user@example.com");
+            workout.setName("Bench Press");
+            workout.setSets(3);
+            workout.setReps(10);
+            workout.setWeight(60 + i % 40);
+            workout.setCaloriesBurned(250);
+            workout.setDate(START.plusMinutes(i));
+            return workout;
+        });
+    }
+
+    private static Meal meal() {
+        Meal meal = new Meal();
+        meal.setId("meal1");
+        meal.setTitle("Oats");
+        meal.setCalories(350);
+        meal.setDateTime(START);
+        return meal;
+    }
+}
@@ -0,0 +1,103 @@
+package com.echobody.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FanOutTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final FanOut fanOut = new FanOut(executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsCallsConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        FanOut.Call<String> a;
+        FanOut.Call<String> b;
+        try (FanOut.Scope scope = fanOut.open()) {
+            a = scope.fork(() -> rendezvous(bothStarted, "a"), Duration.ofSeconds(10));
+            b = scope.fork(() -> rendezvous(bothStarted, "b"), Duration.ofSeconds(10));
+            scope.join();
+        }
+        assertEquals("a", a.get());
+        assertEquals("b", b.get());
+    }
+
+    @Test
+    void slowOptionalCallFallsBack() {
+        FanOut.Call<String> fast;
+        FanOut.Call<String> slow;
+        try (FanOut.Scope scope = fanOut.open()) {
+            fast = scope.fork(() -> "fast", Duration.ofSeconds(10));
+            slow = scope.fork(() -> {
+                Thread.sleep(5_000);
+                return "slow";
+            }, Duration.ofMillis(50), "fallback");
+            scope.join();
+        }
+        assertEquals("fast", fast.get());
+        assertEquals("fallback", slow.get());
+    }
+
+    @Test
+    void requiredFailureFailsJoinAndCancelsSiblings() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (FanOut.Scope scope = fanOut.open()) {
+            scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return "late";
+            }, Duration.ofSeconds(10), "fallback");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            scope.fork(() -> {
+                throw new IllegalStateException("boom");
+            }, Duration.ofSeconds(10));
+
+            FanOut.FanOutException ex = assertThrows(FanOut.FanOutException.class, scope::join);
+            assertInstanceOf(IllegalStateException.class, ex.getCause());
+        }
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void inlineExecutorRunsCallsOnTheCallerAndStillFallsBack() {
+        FanOut inline = new FanOut(Runnable::run);
+        Thread caller = Thread.currentThread();
+        FanOut.Call<Thread> ran;
+        FanOut.Call<String> failed;
+        try (FanOut.Scope scope = inline.open()) {
+            ran = scope.fork(Thread::currentThread, Duration.ofSeconds(10));
+            failed = scope.fork(() -> {
+                throw new IllegalStateException("boom");
+            }, Duration.ofSeconds(10), "fallback");
+            scope.join();
+        }
+        assertSame(caller, ran.get());
+        assertEquals("fallback", failed.get());
+    }
+
+    private static String rendezvous(CountDownLatch latch, String value) throws InterruptedException {
+        latch.countDown();
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Calls ran one after another");
+        }
+        return value;
+    }
+}
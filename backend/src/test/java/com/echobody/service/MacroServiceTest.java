@@ -0,0 +1,114 @@
+package com.echobody.service;
+
+import com.echobody.dto.MacrosDTO;
+import com.echobody.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MacroServiceTest {
+
+    private static final String USER = "user@example.com";
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    // A Wednesday
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 13);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MacroService service = new MacroService(mongoTemplate, new SimpleMeterRegistry(), 100,
+            Duration.ofHours(1));
+
+    @Test
+    void weeksCarryRatiosAndGoalDeltas() {
+        returns(week(LocalDate.of(2024, 3, 4), 14000, 700, 1400, 500), week(TODAY.minusDays(2), 3000, 150, 300, 100));
+
+        MacrosDTO macros = service.getMacros(user(), LocalDate.of(2024, 3, 6), TODAY,
+                MacroService.Granularity.WEEK, ZONE, TODAY);
+
+        assertEquals("2024-03-04", macros.getFrom());
+        assertEquals("2024-03-17", macros.getTo());
+        MacrosDTO.Period past = macros.getPeriods().get(0);
+        assertEquals(7, past.getDays());
+        assertFalse(past.isCurrent());
+        assertEquals(700 * 4.0 / (700 * 4 + 1400 * 4 + 500 * 9), past.getProteinRatio(), 0.001);
+        assertEquals(14000 - 7 * macros.getDailyTarget().getCalories(), past.getDelta().getCalories());
+        // Monday to Wednesday so far
+        MacrosDTO.Period current = macros.getPeriods().get(1);
+        assertEquals(3, current.getDays());
+        assertTrue(current.isCurrent());
+        assertEquals(3 * macros.getDailyTarget().getProtein(), current.getTarget().getProtein());
+    }
+
+    @Test
+    void onlyTheCurrentPeriodIsReadAgainUntilAMealChanges() {
+        returns();
+        LocalDate from = LocalDate.of(2024, 1, 1);
+
+        service.getMacros(user(), from, TODAY, MacroService.Granularity.MONTH, ZONE, TODAY);
+        service.getMacros(user(), from, TODAY, MacroService.Granularity.MONTH, ZONE, TODAY);
+        service.onUserDataChanged(new UserDataChangedEvent(USER, UserDataChangedEvent.DataType.MOOD));
+        service.getMacros(user(), from, TODAY, MacroService.Granularity.MONTH, ZONE, TODAY);
+        service.onUserDataChanged(new UserDataChangedEvent(USER, UserDataChangedEvent.DataType.MEALS));
+        service.getMacros(user(), from, TODAY, MacroService.Granularity.MONTH, ZONE, TODAY);
+
+        ArgumentCaptor<Aggregation> reads = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate, times(4)).aggregate(reads.capture(), eq("meals"), eq(Document.class));
+        assertEquals(List.of("2024-01-01", "2024-03-01", "2024-03-01", "2024-01-01"),
+                reads.getAllValues().stream().map(MacroServiceTest::firstDay).toList());
+    }
+
+    @Test
+    void targetsFollowBodyAndGoal() {
+        User user = user();
+        MacrosDTO.Macros target = MacroService.dailyTarget(user);
+        // (10 * 80 + 6.25 * 180 - 5 * 30 + 5) * 1.55 - 500
+        assertEquals(2259, target.getCalories());
+        assertEquals(Math.round(2259 * 0.35 / 4), target.getProtein());
+
+        assertEquals(2000, MacroService.dailyTarget(new User()).getCalories());
+    }
+
+    private void returns(Document... rows) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("meals"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(rows), new Document()));
+    }
+
+    private static Document week(LocalDate start, int calories, int protein, int carbs, int fat) {
+        return new Document("_id", Date.from(start.atStartOfDay(ZONE).toInstant()))
+                .append("meals", 3).append("calories", calories).append("protein", protein)
+                .append("carbs", carbs).append("fat", fat);
+    }
+
+    private static String firstDay(Aggregation aggregation) {
+        Document match = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$match", Document.class);
+        Object gte = match.get("dateTime", Document.class).get("$gte");
+        return ((LocalDateTime) gte).atZone(ZoneId.systemDefault()).withZoneSameInstant(ZONE)
+                .toLocalDate().toString();
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setEmail(USER);
+        user.setWeight_kg(80);
+        user.setHeight_cm(180);
+        user.setAge(30);
+        user.setGender("Male");
+        user.setGoal("Lose Weight");
+        user.setTimezone(ZONE.getId());
+        return user;
+    }
+}
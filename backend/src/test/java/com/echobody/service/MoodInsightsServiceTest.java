@@ -0,0 +1,80 @@
+package com.echobody.service;
+
+import com.echobody.dto.MoodInsightsDTO;
+import com.echobody.repository.WorkoutStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MoodInsightsServiceTest {
+
+    private static final String USER = "user@example.com";
+
+    @Test
+    void mergesDaysFromAllThreeCursorsInOnePass() {
+        List<Document> moods = List.of(mood("2024-03-01", 6), mood("2024-03-03", 8), mood("2024-03-05", 4));
+        List<Document> workouts = List.of(workout("2024-03-01", 2000, 300), workout("2024-03-02", 1500, 200),
+                workout("2024-03-03", 4000, 400));
+        List<Document> meals = List.of(meal("2024-03-01", 2500), meal("2024-03-05", 1800));
+
+        MoodInsightsDTO insights = MoodInsightsService.merge(moods.iterator(), workouts.iterator(),
+                meals.iterator());
+
+        assertEquals(List.of("2024-03-01", "2024-03-03", "2024-03-05"),
+                insights.getDays().stream().map(MoodInsightsDTO.Day::getDate).toList());
+        MoodInsightsDTO.Day first = insights.getDays().get(0);
+        assertEquals(2000, first.getWorkoutVolume());
+        assertEquals(2200, first.getCalorieBalance());
+        assertEquals(-400, insights.getDays().get(1).getCalorieBalance());
+
+        // Monday March 4th starts the second week; the first totals its workout-only day too
+        assertEquals(2, insights.getWeeks().size());
+        assertEquals("2024-02-26", insights.getWeeks().get(0).getWeekStart());
+        assertEquals(7500, insights.getWeeks().get(0).getWorkoutVolume());
+        assertEquals(7.0, insights.getWeeks().get(0).getAverageEnergy());
+        assertEquals("2024-03-04", insights.getWeeks().get(1).getWeekStart());
+        assertTrue(insights.getEnergyVsVolume() > 0.9);
+    }
+
+    @Test
+    void servesFromCacheUntilTheUserWrites() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        WorkoutStore workoutStore = mock(WorkoutStore.class);
+        when(workoutStore.collection()).thenReturn("workouts");
+        when(workoutStore.over(any(), any(), any(), any())).thenAnswer(call -> call.getArgument(3));
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), anyString(), eq(Document.class)))
+                .thenAnswer(call -> Stream.empty());
+        MoodInsightsService service = new MoodInsightsService(mongoTemplate, workoutStore,
+                new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+
+        service.getInsights(USER, null, null);
+        service.getInsights(USER, null, null);
+        verify(mongoTemplate, times(3)).aggregateStream(any(Aggregation.class), anyString(), eq(Document.class));
+
+        service.onUserDataChanged(new UserDataChangedEvent(USER, UserDataChangedEvent.DataType.MOOD));
+        service.getInsights(USER, null, null);
+        verify(mongoTemplate, times(6)).aggregateStream(any(Aggregation.class), anyString(), eq(Document.class));
+    }
+
+    private static Document mood(String day, int energy) {
+        return new Document("_id", day).append("entries", 1).append("energy", energy).append("mood", "Good");
+    }
+
+    private static Document workout(String day, double volume, int burned) {
+        return new Document("_id", day).append("volume", volume).append("burned", burned);
+    }
+
+    private static Document meal(String day, int consumed) {
+        return new Document("_id", day).append("consumed", consumed);
+    }
+}
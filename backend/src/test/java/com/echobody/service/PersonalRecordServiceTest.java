@@ -0,0 +1,81 @@
+package com.echobody.service;
+
+import com.echobody.model.PersonalRecord;
+import com.echobody.model.Workout;
+import com.echobody.repository.WorkoutStore;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PersonalRecordServiceTest {
+
+    private static final String USER = "user@example.com";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final PersonalRecordService service = service();
+
+    @Test
+    void keysMatchThePipelineNormalization() {
+        assertEquals("bench press", PersonalRecordService.keyOf("  Bench Press "));
+        assertEquals("élan", PersonalRecordService.keyOf("élan"));
+        assertEquals("Élan", PersonalRecordService.keyOf("ÉLAN"));
+        assertNull(PersonalRecordService.keyOf("   "));
+        assertNull(PersonalRecordService.keyOf(null));
+    }
+
+    @Test
+    void anInsertOnlyReplacesAWeakerRecord() {
+        service.workoutsAdded(List.of(
+                workout("a", "Squat", 100, LocalDateTime.of(2024, 1, 9, 7, 0)),
+                workout("b", "squat ", 120, LocalDateTime.of(2024, 1, 10, 7, 0)),
+                workout("c", " ", 500, LocalDateTime.of(2024, 1, 10, 7, 0))));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(PersonalRecord.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals(USER + "|squat", filter.get("_id"));
+        assertEquals(2, filter.getList("$or", Document.class).size());
+        assertEquals("b", update.getValue().getUpdateObject().get("$set", Document.class).get("workoutId"));
+    }
+
+    @Test
+    void removingAWorkoutThatHoldsNoRecordLeavesRecordsAlone() {
+        PersonalRecord held = new PersonalRecord();
+        held.setWorkoutId("other");
+        when(mongoTemplate.findById(USER + "|squat", PersonalRecord.class)).thenReturn(held);
+
+        service.workoutRemoved(workout("a", "Squat", 100, LocalDateTime.of(2024, 1, 9, 7, 0)));
+
+        verify(mongoTemplate, never()).aggregate(any(), anyString(), any());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(PersonalRecord.class));
+    }
+
+    private PersonalRecordService service() {
+        PersonalRecordService service = new PersonalRecordService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "workoutStore", mock(WorkoutStore.class));
+        return service;
+    }
+
+    private static Workout workout(String id, String name, double weight, LocalDateTime date) {
+        Workout workout = new Workout();
+        workout.setId(id);
+        workout.setUserId(USER);
+        workout.setName(name);
+        workout.setWeight(weight);
+        workout.setDate(date);
+        return workout;
+    }
+}
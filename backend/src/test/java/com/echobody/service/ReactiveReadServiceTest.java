@@ -0,0 +1,116 @@
+package com.echobody.service;
+
+import com.echobody.dto.DashboardSummary;
+import com.echobody.dto.TrendPointDTO;
+import com.echobody.model.MoodEntry;
+import com.echobody.model.UserDailyStats;
+import com.echobody.model.UserRollup;
+import com.echobody.model.UserStreak;
+import com.echobody.repository.ReactiveMoodRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveReadServiceTest {
+
+    private static final String USER = "user@example.com";
+
+    private final ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+    private final ReactiveMoodRepository moodRepository = mock(ReactiveMoodRepository.class);
+    private final RollupService rollupService = mock(RollupService.class);
+    private final ReactiveReadService service = new ReactiveReadService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "reactiveMongoTemplate", template);
+        ReflectionTestUtils.setField(service, "moodRepository", moodRepository);
+        ReflectionTestUtils.setField(service, "rollupService", rollupService);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofMillis(200));
+        when(template.findById(USER, UserStreak.class)).thenReturn(Mono.just(streak()));
+    }
+
+    @Test
+    void summarizesRollupAndLatestMood() {
+        when(template.findById(USER, UserRollup.class)).thenReturn(Mono.just(rollup()));
+        MoodEntry mood = new MoodEntry();
+        mood.setEnergy(2);
+        when(moodRepository.findFirstByUserIdOrderByDateDesc(USER)).thenReturn(Mono.just(mood));
+
+        DashboardSummary summary = service.getDashboardSummary(USER).block();
+
+        assertEquals(12, summary.getTotalWorkouts());
+        assertEquals(3, summary.getWorkoutsThisWeek());
+        assertEquals("Low", summary.getEnergyLevel());
+        assertEquals(2, summary.getStreakDays());
+        verifyNoInteractions(rollupService);
+    }
+
+    @Test
+    void trendReadsDailyStatsWhenEnabled() {
+        ReflectionTestUtils.setField(service, "dailyStats", true);
+        UserDailyStats day = new UserDailyStats();
+        day.setDay("2024-03-01");
+        day.setWorkoutPoints(140);
+        when(template.find(any(Query.class), eq(UserDailyStats.class))).thenReturn(Flux.just(day));
+
+        List<TrendPointDTO> trend = service.getTrend(USER, null, null).collectList().block();
+
+        assertEquals(List.of(new TrendPointDTO("2024-03-01", 100)), trend);
+        verify(template, never()).aggregate(any(Aggregation.class), anyString(), eq(Document.class));
+    }
+
+    @Test
+    void buildsMissingRollupAndDegradesSlowMood() {
+        when(template.findById(USER, UserRollup.class)).thenReturn(Mono.empty());
+        when(rollupService.rebuild(USER)).thenReturn(rollup());
+        when(moodRepository.findFirstByUserIdOrderByDateDesc(USER)).thenReturn(Mono.never());
+
+        DashboardSummary summary = service.getDashboardSummary(USER).block(Duration.ofSeconds(5));
+
+        assertEquals(12, summary.getTotalWorkouts());
+        assertEquals("High", summary.getEnergyLevel());
+        verify(rollupService).rebuild(USER);
+    }
+
+    // Active yesterday and the day before; nothing logged yet today
+    private static UserStreak streak() {
+        UserStreak streak = new UserStreak();
+        streak.setZone("UTC");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (LocalDate day : new LocalDate[] {today.minusDays(1), today.minusDays(2), today.minusDays(4)}) {
+            streak.getYears().computeIfAbsent(String.valueOf(day.getYear()), k -> new HashMap<>())
+                    .merge(String.valueOf((day.getDayOfYear() - 1) / 64), 1L << ((day.getDayOfYear() - 1) % 64),
+                            (a, b) -> a | b);
+        }
+        return streak;
+    }
+
+    private static UserRollup rollup() {
+        UserRollup rollup = new UserRollup();
+        rollup.setTotalWorkouts(12);
+        UserRollup.DayBucket today = new UserRollup.DayBucket();
+        today.setWorkouts(3);
+        rollup.getDays().put(LocalDate.now().toString(), today);
+        // Outside the window; ignored even before it is pruned
+        UserRollup.DayBucket old = new UserRollup.DayBucket();
+        old.setWorkouts(9);
+        rollup.getDays().put(LocalDate.now().minusDays(30).toString(), old);
+        return rollup;
+    }
+}
@@ -0,0 +1,102 @@
+package com.echobody.service;
+
+import com.echobody.model.UserStreak;
+import com.echobody.model.Workout;
+import com.echobody.repository.WorkoutStore;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StreakServiceTest {
+
+    private static final String USER = "user@example.com";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final StreakService service = service();
+
+    @Test
+    void runsCarryAcrossWordAndYearBoundaries() {
+        Map<String, Map<String, Long>> years = new HashMap<>();
+        // Days 63-66 of 2023 straddle the first word boundary
+        for (int day = 63; day <= 66; day++) {
+            set(years, LocalDate.ofYearDay(2023, day));
+        }
+        LocalDate newYear = LocalDate.of(2024, 1, 1);
+        for (LocalDate day = newYear.minusDays(3); day.isBefore(newYear.plusDays(3)); day = day.plusDays(1)) {
+            set(years, day);
+        }
+        set(years, LocalDate.of(2024, 12, 31));
+
+        assertEquals(6, StreakService.longest(years));
+        assertEquals(6, StreakService.current(years, LocalDate.of(2024, 1, 4)));
+        assertEquals(0, StreakService.current(years, LocalDate.of(2024, 1, 5)));
+        assertTrue(StreakService.isActive(years, LocalDate.of(2024, 12, 31)));
+        assertEquals(0, StreakService.longest(new HashMap<>()));
+    }
+
+    @Test
+    void daysFollowTheUsersZone() {
+        // 23:30 in UTC is already the next day in Tokyo
+        LocalDateTime late = LocalDateTime.of(2024, 3, 1, 23, 30)
+                .atZone(ZoneId.of("UTC")).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        assertEquals(LocalDate.of(2024, 3, 2), StreakService.dayOf(late, ZoneId.of("Asia/Tokyo")));
+        assertEquals(ZoneId.systemDefault(), StreakService.zoneOf("Not/AZone"));
+    }
+
+    @Test
+    void logSetsOneBitAndStoresTheNewLongest() {
+        UserStreak stored = new UserStreak();
+        stored.setZone("UTC");
+        when(mongoTemplate.findOne(any(Query.class), eq(UserStreak.class))).thenReturn(stored);
+        UserStreak updated = new UserStreak();
+        updated.setVersion(4);
+        set(updated.getYears(), LocalDate.of(2024, 3, 1));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(UserStreak.class))).thenReturn(updated);
+
+        Workout workout = new Workout();
+        workout.setUserId(USER);
+        workout.setDate(LocalDateTime.of(2024, 3, 1, 12, 0)
+                .atZone(ZoneId.of("UTC")).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+        service.workoutsAdded(USER, List.of(workout));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(UserStreak.class));
+        // March 1st 2024 is day 61, bit 60 of the first word
+        assertEquals(new Document("years.2024.0", new Document("or", 1L << 60)),
+                update.getValue().getUpdateObject().get("$bit"));
+        ArgumentCaptor<Query> guarded = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(guarded.capture(), any(Update.class), eq(UserStreak.class));
+        assertEquals(4L, guarded.getValue().getQueryObject().get("version"));
+    }
+
+    private StreakService service() {
+        StreakService service = new StreakService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "workoutStore", mock(WorkoutStore.class));
+        return service;
+    }
+
+    private static void set(Map<String, Map<String, Long>> years, LocalDate day) {
+        int index = day.getDayOfYear() - 1;
+        years.computeIfAbsent(String.valueOf(day.getYear()), k -> new HashMap<>())
+                .merge(String.valueOf(index / 64), 1L << (index % 64), (a, b) -> a | b);
+    }
+}